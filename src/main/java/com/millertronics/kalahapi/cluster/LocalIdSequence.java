@@ -0,0 +1,39 @@
+package com.millertronics.kalahapi.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Moves the game ID sequence of this node into the range of local IDs of the current generation of the cluster
+ * (see ShardRouter) before any game is created, so that games created after a node was added are told apart
+ * from earlier games, which stay with the shards they were created on.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "kalah.cluster", name = "enabled")
+public class LocalIdSequence {
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Restarts the ID sequence at the first local ID of the current generation unless games were created there already
+     */
+    @PostConstruct
+    public void advance() {
+        final int firstLocalId = shardRouter.getFirstLocalId();
+        final Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM game_entity", Integer.class);
+        if (maxId != null && maxId < firstLocalId) {
+            jdbcTemplate.execute("ALTER TABLE game_entity ALTER COLUMN id RESTART WITH " + firstLocalId);
+            log.info("Game IDs restarted at {} for the current nodes", firstLocalId);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.millertronics.kalahapi.cluster;
+
+import com.millertronics.kalahapi.exceptions.GameCapacityExceededException;
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * Maps games to the cluster node owning them.<br />
+ *
+ * The public game ID encodes a shard: publicId = localId * shardCount + shard.
+ * Shards are spread over the nodes by consistent hashing, each node being placed on the hash ring
+ * at a number of virtual points, and new games are placed on the shards owned by the node creating them.<br />
+ *
+ * Nodes are listed in the order they joined and only ever appended, so the cluster has had one ring per node count,
+ * its generations. Local IDs are split into one range per generation, the node's ID sequence being moved into the
+ * range of the current generation on startup (see LocalIdSequence). A game is owned by the owner of its shard in the
+ * ring of the generation its local ID falls in, which is the node that created it: adding a node moves no game,
+ * the new node only getting new games of the shards it takes over.<br />
+ *
+ * Public IDs are ints, so a node can create at most Integer.MAX_VALUE / shardCount / maxNodes games per generation
+ * (1048575 with the default 256 shards and 8 nodes) before it has to be started with an empty database.
+ * Only the public ID issued for a local game decodes to it; other IDs of the same local ID are not found.
+ * When clustering is disabled public and local IDs are the same and every game is local.
+ */
+@Component
+public class ShardRouter {
+
+    private final boolean enabled;
+    private final String self;
+    private final int shardCount;
+    private final int generation;
+    private final int generationSize;
+
+    /**
+     * Owner of each shard, by generation
+     */
+    private final String[][] shardOwners;
+
+    /**
+     * Shards owned by this node, by generation; empty for generations before this node joined
+     */
+    private final int[][] localShards;
+
+    /**
+     * @param enabled whether games are sharded across nodes
+     * @param self base URL of this node, as listed in nodes
+     * @param nodes base URLs of every node of the cluster, in the order they joined
+     * @param shardCount number of shards game IDs are spread over
+     * @param virtualNodes number of points each node takes on the hash ring
+     * @param maxNodes largest number of nodes the cluster can grow to, each node added starting a generation
+     */
+    public ShardRouter(@Value("${kalah.cluster.enabled:false}") final boolean enabled,
+                       @Value("${kalah.cluster.self:}") final String self,
+                       @Value("${kalah.cluster.nodes:}") final List<String> nodes,
+                       @Value("${kalah.cluster.shards:256}") final int shardCount,
+                       @Value("${kalah.cluster.virtual-nodes:64}") final int virtualNodes,
+                       @Value("${kalah.cluster.max-nodes:8}") final int maxNodes) {
+        this.enabled = enabled;
+        this.self = self;
+        this.shardCount = enabled ? shardCount : 1;
+        this.generationSize = (Integer.MAX_VALUE - (this.shardCount - 1)) / this.shardCount / (enabled ? maxNodes : 1);
+
+        if (!enabled) {
+            this.generation = 0;
+            this.shardOwners = new String[][]{{self}};
+            this.localShards = new int[][]{{0}};
+            return;
+        }
+        if (!nodes.contains(self)) {
+            throw new IllegalStateException(String.format("kalah.cluster.self %s is not one of the nodes %s", self, nodes));
+        }
+        if (nodes.size() > maxNodes) {
+            throw new IllegalStateException(String.format("%d nodes are more than kalah.cluster.max-nodes %d",
+                    nodes.size(), maxNodes));
+        }
+
+        this.generation = nodes.size() - 1;
+        this.shardOwners = new String[nodes.size()][];
+        this.localShards = new int[nodes.size()][];
+        for (int g = 0; g < nodes.size(); g++) {
+            final String[] owners = assignShards(nodes.subList(0, g + 1), shardCount, virtualNodes);
+            shardOwners[g] = owners;
+            localShards[g] = IntStream.range(0, shardCount).filter(shard -> owners[shard].equals(self)).toArray();
+        }
+        if (localShards[generation].length == 0) {
+            throw new IllegalStateException("No shard is owned by " + self + ", increase kalah.cluster.shards");
+        }
+    }
+
+    /**
+     * @return whether games are sharded across nodes
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the first local ID of the current generation, where the ID sequence of this node has to be
+     *
+     * @return lowest local ID of the games created by this node with the current nodes
+     */
+    public int getFirstLocalId() {
+        return generation * generationSize;
+    }
+
+    /**
+     * Encodes the ID of a game created on this node with one of the shards owned by this node
+     * in the generation the game was created in
+     *
+     * @param localId database ID of the game on this node
+     * @return public game ID
+     * @throws GameCapacityExceededException if localId is beyond the public IDs this node can issue
+     */
+    public int toPublicId(final int localId) {
+        if (!enabled) {
+            return localId;
+        }
+        final int g = localId / generationSize;
+        if (g > generation) {
+            throw new GameCapacityExceededException(String.format(
+                    "Game %d is beyond the %d games a node can hold per generation with %d shards",
+                    localId, generationSize, shardCount));
+        }
+        final int[] shards = localShards[g];
+        if (shards.length == 0) {
+            throw new IllegalStateException(String.format("Game %d predates %s joining the cluster", localId, self));
+        }
+        return localId * shardCount + shards[localId % shards.length];
+    }
+
+    /**
+     * Decodes the database ID of a game from its public ID
+     *
+     * @param publicId public game ID
+     * @return database ID of the game on its owning node
+     * @throws GameNotFoundException if publicId is not the public ID issued for a game of this node
+     */
+    public int toLocalId(final int publicId) throws GameNotFoundException {
+        final int localId = floorLocalId(publicId);
+        if (localId < 0) {
+            throw new GameNotFoundException("Game not found for ID: " + publicId);
+        }
+        if (!enabled) {
+            return localId;
+        }
+        final int g = localId / generationSize;
+        if (g > generation || localShards[g].length == 0
+                || (long) localId * shardCount + localShards[g][localId % localShards[g].length] != publicId) {
+            throw new GameNotFoundException("Game not found for ID: " + publicId);
+        }
+        return localId;
+    }
+
+    /**
+     * Decodes the database ID a public ID falls at, for scanning a range of public IDs or keying per-game state
+     *
+     * @param publicId public game ID, not necessarily issued
+     * @return database ID of the games whose public IDs are around publicId
+     */
+    public int floorLocalId(final int publicId) {
+        return publicId / shardCount;
+    }
+
+    /**
+     * @param publicId public game ID
+     * @return true if the game is owned by this node
+     */
+    public boolean isLocal(final int publicId) {
+        return !enabled || self.equals(findOwner(publicId));
+    }
+
+    /**
+     * Finds the node owning a game: the owner of its shard in the generation the game was created in.
+     * IDs beyond the current generation, which no node has issued, are given to the owner in the current generation.
+     *
+     * @param publicId public game ID
+     * @return base URL of the node owning the game
+     */
+    public String findOwner(final int publicId) {
+        if (!enabled) {
+            return self;
+        }
+        final int g = Math.min(Math.max(publicId, 0) / shardCount / generationSize, generation);
+        return shardOwners[g][Math.floorMod(publicId, shardCount)];
+    }
+
+    /**
+     * Places the nodes on a hash ring and gives each shard to the node following it on the ring
+     *
+     * @return owner of each shard
+     */
+    private static String[] assignShards(final List<String> nodes, final int shardCount, final int virtualNodes) {
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+        String[] owners = new String[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            Map.Entry<Long, String> owner = ring.ceilingEntry(hash("shard-" + shard));
+            owners[shard] = owner != null ? owner.getValue() : ring.firstEntry().getValue();
+        }
+        return owners;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the UTF-8 bytes, finished with the MurmurHash3 mixer to spread similar keys around the ring
+     */
+    static long hash(final String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,58 @@
+package com.millertronics.kalahapi.cluster;
+
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.exceptions.handlers.CustomExceptionHandler;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Redirects requests for games owned by another node of the cluster to that node.
+ * A 307 redirect is used so that clients repeat the request with the same method and body.
+ * IDs too large to be a game ID are answered with 404 here, as no node can own them.
+ */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "kalah.cluster", name = "enabled")
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    private static final Pattern GAME_PATH = Pattern.compile("^/games/(\\d{1,10})(/.*)?$");
+
+    private final ShardRouter shardRouter;
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final Matcher matcher = GAME_PATH.matcher(path);
+        if (matcher.matches()) {
+            final int gameId;
+            try {
+                gameId = Integer.parseInt(matcher.group(1));
+            } catch (NumberFormatException e) {
+                CustomExceptionHandler.writeProblem(response, HttpStatus.NOT_FOUND, "Invalid game ID.",
+                        GameErrorCode.GAME_NOT_FOUND, "Game not found for ID: " + matcher.group(1));
+                return;
+            }
+            if (!shardRouter.isLocal(gameId)) {
+                final String query = request.getQueryString();
+                response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+                response.setHeader(HttpHeaders.LOCATION, shardRouter.findOwner(gameId) + request.getRequestURI()
+                        + (query == null ? "" : "?" + query));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
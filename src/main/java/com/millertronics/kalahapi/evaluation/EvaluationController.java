@@ -0,0 +1,55 @@
+package com.millertronics.kalahapi.evaluation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.exceptions.handlers.CustomExceptionHandler;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Rest controller for evaluating moves on board positions outside of any game
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/evaluations")
+public class EvaluationController {
+
+    private final PositionEvaluator positionEvaluator;
+
+    /**
+     * Handles POST request to apply moves to a batch of board positions.
+     * The body is read and the results written as streams, so batches may be larger than memory.
+     * Returns status 400 if the body is malformed before any result has been sent.
+     *
+     * @param request incoming HttpServletRequest with a Json array of positions, each containing pits and pit
+     * @param response outgoing HttpServletResponse with a Json array of results, in the order of the positions
+     * @throws IOException if the body cannot be read or the results written
+     */
+    @Operation(summary = "Apply moves to a batch of board positions")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "400")
+    @PostMapping(path = "", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void evaluate(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try {
+            positionEvaluator.evaluate(request.getInputStream(), response.getOutputStream());
+        } catch (JsonProcessingException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.resetBuffer();
+            CustomExceptionHandler.writeProblem(response, HttpStatus.BAD_REQUEST, "Malformed positions.",
+                    GameErrorCode.INVALID_BOARD, e.getOriginalMessage());
+        }
+    }
+}
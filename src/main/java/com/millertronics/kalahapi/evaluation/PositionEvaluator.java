@@ -0,0 +1,243 @@
+package com.millertronics.kalahapi.evaluation;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameStatusCalculator;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Applies moves to arbitrary board positions without games, entities or the database.<br />
+ * Positions are read from a streamed JSON array in chunks, and each chunk is evaluated and serialized on a
+ * pool sized to the cores while the next chunks are read. Results are written in request order, with at most
+ * a few chunks per core in memory, so batches of any size run in constant memory.
+ */
+@Service
+public class PositionEvaluator {
+
+    static final int CHUNK_SIZE = 4096;
+    static final int MAX_PITS = 64;
+    static final int MAX_STONES = 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final SerializedString SEPARATOR = new SerializedString(",");
+
+    private final GameStatusCalculator gameStatusCalculator;
+    private final ExecutorService executor;
+    private final int maxChunksInFlight;
+
+    public PositionEvaluator(final GameStatusCalculator gameStatusCalculator) {
+        final int parallelism = Runtime.getRuntime().availableProcessors();
+        this.gameStatusCalculator = gameStatusCalculator;
+        this.executor = new ForkJoinPool(parallelism);
+        this.maxChunksInFlight = parallelism * 2;
+    }
+
+    /**
+     * Reads a JSON array of positions, each {"pits": [...], "pit": n} with n the one-based pit to move from,
+     * and writes a JSON array holding the result of each move in the same order.
+     * A legal move gives {"legal": true, "pits": [...], "turn": player to move next, "capture": ..., "finished": ...},
+     * any other {"legal": false, "code": reason}.
+     *
+     * @param in request body, read to its end
+     * @param out stream the results are written to, left open
+     * @return number of positions evaluated
+     * @throws JsonParseException if the body is not an array of positions
+     * @throws IOException if the body cannot be read or the results written
+     */
+    public long evaluate(final InputStream in, final OutputStream out) throws IOException {
+        ArrayDeque<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        long count = 0;
+        boolean first = true;
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of positions");
+            }
+            List<Position> chunk;
+            while (!(chunk = readChunk(parser)).isEmpty()) {
+                count += chunk.size();
+                final List<Position> positions = chunk;
+                inFlight.add(CompletableFuture.supplyAsync(() -> evaluateChunk(positions), executor));
+                if (inFlight.size() >= maxChunksInFlight) {
+                    first = write(out, inFlight.remove(), first);
+                }
+            }
+        }
+        if (first) {
+            out.write('[');
+        }
+        while (!inFlight.isEmpty()) {
+            first = write(out, inFlight.remove(), first);
+        }
+        out.write(']');
+        return count;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for the results of a chunk and writes them, opening the array before the first chunk
+     *
+     * @return false, as the array has been opened
+     */
+    private static boolean write(final OutputStream out, final CompletableFuture<byte[]> results,
+                                 final boolean first) throws IOException {
+        final byte[] bytes;
+        try {
+            bytes = results.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        out.write(first ? '[' : ',');
+        out.write(bytes);
+        return false;
+    }
+
+    /**
+     * Reads up to CHUNK_SIZE positions
+     *
+     * @return positions read, empty at the end of the array
+     */
+    private static List<Position> readChunk(final JsonParser parser) throws IOException {
+        List<Position> chunk = new ArrayList<>(CHUNK_SIZE);
+        while (chunk.size() < CHUNK_SIZE) {
+            final JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                break;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a position object");
+            }
+            chunk.add(readPosition(parser));
+        }
+        return chunk;
+    }
+
+    private static Position readPosition(final JsonParser parser) throws IOException {
+        int[] pits = null;
+        int pit = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+            if ("pits".equals(field) && value == JsonToken.START_ARRAY) {
+                int[] values = new int[GameEntity.PIT_SIZE];
+                int size = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (size == values.length) {
+                        if (size >= MAX_PITS) {
+                            throw new JsonParseException(parser, "Too many pits in position");
+                        }
+                        values = Arrays.copyOf(values, size * 2);
+                    }
+                    values[size++] = parser.getValueAsInt(-1);
+                }
+                pits = Arrays.copyOf(values, size);
+            } else if ("pit".equals(field)) {
+                pit = parser.getValueAsInt(0);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Position(pits, pit);
+    }
+
+    /**
+     * Evaluates and serializes a chunk of positions as comma-separated JSON objects
+     */
+    private byte[] evaluateChunk(final List<Position> positions) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(positions.size() * 96);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(bytes, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(SEPARATOR);
+            for (Position position : positions) {
+                writeResult(generator, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void writeResult(final JsonGenerator generator, final Position position) throws IOException {
+        generator.writeStartObject();
+        if (!isValidBoard(position.pits)) {
+            generator.writeBooleanField("legal", false);
+            generator.writeStringField("code", GameErrorCode.INVALID_BOARD.name());
+            generator.writeEndObject();
+            return;
+        }
+        final int pitIndex = position.pit - 1;
+        try {
+            GameStatusCalculator.checkPitRange(pitIndex, position.pits.length);
+            final int[] newPits = gameStatusCalculator.redistributeStones(position.pits, pitIndex);
+            generator.writeBooleanField("legal", true);
+            generator.writeArrayFieldStart("pits");
+            for (int stones : newPits) {
+                generator.writeNumber(stones);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("turn",
+                    gameStatusCalculator.calculateNextTurn(position.pits[pitIndex], pitIndex, newPits));
+            generator.writeBooleanField("capture", gameStatusCalculator.isCapture(position.pits, pitIndex));
+            generator.writeBooleanField("finished", gameStatusCalculator.isEndGame(newPits));
+        } catch (IllegalGameMoveException e) {
+            generator.writeBooleanField("legal", false);
+            generator.writeStringField("code", e.getCode().name());
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Checks a board has two kalah pits with at least one pit before each, no negative pit,
+     * and no more than MAX_PITS pits and MAX_STONES stones, as a move costs time in proportion to its stones
+     */
+    private static boolean isValidBoard(final int[] pits) {
+        if (pits == null || pits.length < 4 || pits.length % 2 != 0 || pits.length > MAX_PITS) {
+            return false;
+        }
+        int total = 0;
+        for (int stones : pits) {
+            if (stones < 0 || stones > MAX_STONES) {
+                return false;
+            }
+            total += stones;
+        }
+        return total <= MAX_STONES;
+    }
+
+    private static final class Position {
+        private final int[] pits;
+        private final int pit;
+
+        private Position(final int[] pits, final int pit) {
+            this.pits = pits;
+            this.pit = pit;
+        }
+    }
+}
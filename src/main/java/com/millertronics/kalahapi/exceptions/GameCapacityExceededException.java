@@ -0,0 +1,14 @@
+package com.millertronics.kalahapi.exceptions;
+
+/**
+ * Thrown when a node has created more games than fit in the public game IDs it can issue
+ */
+public class GameCapacityExceededException extends RuntimeException {
+    public GameCapacityExceededException(String message) {
+        super(message);
+    }
+
+    public GameErrorCode getCode() {
+        return GameErrorCode.GAME_CAPACITY_EXCEEDED;
+    }
+}
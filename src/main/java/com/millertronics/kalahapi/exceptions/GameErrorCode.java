@@ -0,0 +1,19 @@
+package com.millertronics.kalahapi.exceptions;
+
+/**
+ * Machine-readable reason a request was rejected, returned as the code of problem responses
+ */
+public enum GameErrorCode {
+    GAME_NOT_FOUND,
+    ILLEGAL_MOVE,
+    PIT_OUT_OF_RANGE,
+    KALAH_PIT,
+    EMPTY_PIT,
+    OUT_OF_TURN,
+    GAME_FINISHED,
+    NOTHING_TO_UNDO,
+    RATE_LIMITED,
+    INVALID_BOARD,
+    GAME_CAPACITY_EXCEEDED,
+    CONCURRENT_CHANGE
+}
@@ -1,7 +1,15 @@
 package com.millertronics.kalahapi.exceptions;
 
+/**
+ * Thrown when a game ID doesn't match an existing game.
+ * Unknown IDs are a routine client error, so no stack trace is captured.
+ */
 public class GameNotFoundException extends Exception {
     public GameNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+    }
+
+    public GameErrorCode getCode() {
+        return GameErrorCode.GAME_NOT_FOUND;
     }
 }
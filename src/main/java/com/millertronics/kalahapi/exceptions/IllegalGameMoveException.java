@@ -1,7 +1,23 @@
 package com.millertronics.kalahapi.exceptions;
 
+/**
+ * Thrown when a move breaks the rules of the game.
+ * Illegal moves are a routine client error, so no stack trace is captured.
+ */
 public class IllegalGameMoveException extends Exception {
+
+    private final GameErrorCode code;
+
     public IllegalGameMoveException(String message) {
-        super(message);
+        this(GameErrorCode.ILLEGAL_MOVE, message);
+    }
+
+    public IllegalGameMoveException(GameErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public GameErrorCode getCode() {
+        return code == null ? GameErrorCode.ILLEGAL_MOVE : code;
     }
 }
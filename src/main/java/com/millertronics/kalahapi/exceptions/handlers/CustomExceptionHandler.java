@@ -1,7 +1,11 @@
 package com.millertronics.kalahapi.exceptions.handlers;
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.millertronics.kalahapi.exceptions.GameCapacityExceededException;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
 import com.millertronics.kalahapi.exceptions.GameNotFoundException;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -9,17 +13,66 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Writes rejected game requests as application/problem+json.
+ * The body is written straight to the response rather than through sendError,
+ * which would dispatch the request a second time to the error controller.
+ */
 @ControllerAdvice
 public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
 
+    public static final String PROBLEM_JSON_VALUE = "application/problem+json";
+
     @ExceptionHandler(GameNotFoundException.class)
-    public void handleNoSuchElement(HttpServletResponse response) throws IOException {
-        response.sendError(HttpStatus.NOT_FOUND.value(), "Invalid game ID.");
+    public void handleNoSuchElement(GameNotFoundException e, HttpServletResponse response) throws IOException {
+        writeProblem(response, HttpStatus.NOT_FOUND, "Invalid game ID.", e.getCode(), e.getMessage());
     }
 
     @ExceptionHandler(IllegalGameMoveException.class)
-    public void handleIllegalGameMove(HttpServletResponse response) throws IOException {
-        response.sendError(HttpStatus.BAD_REQUEST.value(), "Illegal game move.");
+    public void handleIllegalGameMove(IllegalGameMoveException e, HttpServletResponse response) throws IOException {
+        writeProblem(response, HttpStatus.BAD_REQUEST, "Illegal game move.", e.getCode(), e.getMessage());
+    }
+
+    @ExceptionHandler(GameCapacityExceededException.class)
+    public void handleGameCapacityExceeded(GameCapacityExceededException e, HttpServletResponse response) throws IOException {
+        writeProblem(response, HttpStatus.SERVICE_UNAVAILABLE, "Game capacity exceeded.", e.getCode(), e.getMessage());
+    }
+
+    /**
+     * Answers a move or undo that lost the race to save a game changed by another request since it was read
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public void handleConcurrentChange(OptimisticLockingFailureException e, HttpServletResponse response) throws IOException {
+        writeProblem(response, HttpStatus.CONFLICT, "Game changed concurrently.", GameErrorCode.CONCURRENT_CHANGE,
+                "The game was changed by another request, read it again before retrying");
+    }
+
+    /**
+     * Writes a problem+json body with the reason code of the rejection
+     *
+     * @param response outgoing HttpServletResponse
+     * @param status HTTP status of the problem
+     * @param title human readable summary of the problem type
+     * @param code machine-readable reason code
+     * @param detail explanation of this occurrence, may be null
+     * @throws IOException if the body cannot be written
+     */
+    public static void writeProblem(final HttpServletResponse response, final HttpStatus status, final String title,
+                                    final GameErrorCode code, final String detail) throws IOException {
+        StringBuilder body = new StringBuilder(128)
+                .append("{\"type\":\"about:blank\",\"title\":\"").append(title)
+                .append("\",\"status\":").append(status.value())
+                .append(",\"code\":\"").append(code.name()).append('"');
+        if (detail != null) {
+            body.append(",\"detail\":\"").append(JsonStringEncoder.getInstance().quoteAsString(detail)).append('"');
+        }
+        final byte[] bytes = body.append('}').toString().getBytes(StandardCharsets.UTF_8);
+
+        response.setStatus(status.value());
+        response.setContentType(PROBLEM_JSON_VALUE);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
     }
 }
@@ -0,0 +1,69 @@
+package com.millertronics.kalahapi.game;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold file store for games removed from the live table.
+ * Each batch is written as one gzip compressed file of newline-delimited JSON records, each holding the full
+ * state of a game including its moves. Games are identified by their public IDs, which are unique across the
+ * cluster. File names carry the range of public game IDs and a random suffix, as IDs are reused when an in-memory
+ * database restarts and an archive must never replace an earlier one.
+ */
+@Component
+public class GameArchive {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final ShardRouter shardRouter;
+    private final Path directory;
+
+    /**
+     * @param shardRouter encoder of the public game IDs
+     * @param directory directory the archive files are written to
+     */
+    public GameArchive(final ShardRouter shardRouter,
+                       @Value("${kalah.janitor.archive-dir:archive}") final String directory) {
+        this.shardRouter = shardRouter;
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Writes a batch of games to a new archive file.
+     * The file is only moved into place once complete.
+     *
+     * @param games games to archive, in ID order
+     * @return archive file written
+     * @throws IOException if the file cannot be written, or a file of the same name already exists
+     */
+    public Path write(final List<GameEntity> games) throws IOException {
+        Files.createDirectories(directory);
+        final String name = String.format("games-%d-%d-%s", shardRouter.toPublicId(games.get(0).getId()),
+                shardRouter.toPublicId(games.get(games.size() - 1).getId()), UUID.randomUUID());
+        final Path file = directory.resolve(name + ".ndjson.gz");
+        final Path temp = directory.resolve(name + ".tmp");
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp));
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            for (GameEntity game : games) {
+                GameJsonRecords.writeArchived(generator, shardRouter.toPublicId(game.getId()), game);
+                generator.writeRaw('\n');
+            }
+        }
+        return Files.move(temp, file);
+    }
+}
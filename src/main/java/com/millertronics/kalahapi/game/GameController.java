@@ -1,23 +1,35 @@
 package com.millertronics.kalahapi.game;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.millertronics.kalahapi.cluster.ShardRouter;
 import com.millertronics.kalahapi.exceptions.GameNotFoundException;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.ratelimit.ClientIdentifier;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.Min;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Rest controller for the Game domain
@@ -27,56 +39,298 @@ import javax.validation.constraints.Min;
 @RequestMapping("/games")
 public class GameController {
 
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final GameService gameService;
+    private final GameExportService gameExportService;
+    private final IdempotentResponseCache idempotentResponseCache;
+    private final ShardRouter shardRouter;
+    private final GameReadModel gameReadModel;
+    private final MoveWaiters moveWaiters;
+    private final ClientIdentifier clientIdentifier;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
-     * Handles POST request to create a new game
+     * Handles POST request to create a new game.
+     * In clustered mode the game is created on this node and its public ID encodes one of this node's shards.
      *
      * @param request incoming HttpServletRequest
-     * @return Json response containing id and url
+     * @return Json response containing id, url, turn and legalMoves
      */
     @Operation(summary = "Create a new game")
     @ApiResponse(responseCode = "201")
+    @ApiResponse(responseCode = "503")
     @PostMapping(path = "", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Object> createGame(final HttpServletRequest request) {
         GameEntity game =  gameService.createGame();
 
         ObjectNode jsonNode = objectMapper.createObjectNode();
-        jsonNode.put("id", String.valueOf(game.getId()));
+        jsonNode.put("id", String.valueOf(shardRouter.toPublicId(game.getId())));
         jsonNode.put("url", request.getRequestURL().toString());
+        jsonNode.put("turn", game.getTurn());
+        jsonNode.put("legalMoves", gameService.findLegalMoves(game));
 
         return new ResponseEntity<>(jsonNode, HttpStatus.CREATED);
     }
 
+    /**
+     * Handles GET request to export games as newline-delimited JSON, streamed in ID order.
+     * The response is gzip compressed on the fly if requested by the gzip parameter or the Accept-Encoding header.
+     *
+     * @param fromId lowest game ID to export, inclusive
+     * @param toId highest game ID to export, inclusive
+     * @param gzip whether to compress the response
+     * @param acceptEncoding Accept-Encoding header of the request
+     * @return streamed body with one game per line
+     */
+    @Operation(summary = "Export games as newline-delimited JSON")
+    @ApiResponse(responseCode = "200")
+    @GetMapping(path = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "0") final int fromId,
+                                                        @RequestParam(defaultValue = "2147483647") final int toId,
+                                                        @RequestParam(defaultValue = "false") final boolean gzip,
+                                                        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding) {
+        final boolean compress = gzip || (acceptEncoding != null && acceptEncoding.contains("gzip"));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE));
+        if (compress) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return response.body(out -> {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                gameExportService.export(fromId, toId, gzipOut);
+                gzipOut.finish();
+            });
+        }
+        return response.body(out -> gameExportService.export(fromId, toId, out));
+    }
+
     /**
      * Handles PUT request of players making a move in the game
-     * Returns status 200 if successful, 404 if no game is found, 400 if game move is illegal
+     * Returns status 200 if successful, 404 if no game is found, 400 if game move is illegal.
+     * If an Idempotency-Key header is sent, a retry with the same key from the same client replays the original
+     * response without making the move again. Keys are scoped to the client, so clients reusing each other's keys
+     * never get each other's responses.
      *
      * @param request incoming HttpServletRequest
      * @param gameId ID of game
      * @param pitId Integer representing position of pit in game
-     * @return Json node containing id, url and status
-     * @throws IllegalGameMoveException if pitId is invalid
+     * @param idempotencyKey optional client generated key identifying the request across retries
+     * @return Json node containing id, url, status, turn, finished and legalMoves
+     * @throws IllegalGameMoveException if pitId is invalid or played out of turn
      * @throws GameNotFoundException if gameId doesn't match an existing game
      */
     @Operation(summary = "Carry out a player move")
     @ApiResponse(responseCode = "200")
     @ApiResponse(responseCode = "400")
     @ApiResponse(responseCode = "404")
+    @ApiResponse(responseCode = "409")
     @PutMapping(path ="/{gameId}/pits/{pitId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<Object> play(final HttpServletRequest request,
                                        @PathVariable final int gameId,
-                                       @Min(1) @PathVariable final int pitId)
+                                       @Min(1) @PathVariable final int pitId,
+                                       @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) final String idempotencyKey)
             throws IllegalGameMoveException, GameNotFoundException {
-        GameEntity game = gameService.makeMove(gameId, pitId - 1);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return makeMove(request, gameId, pitId);
+        }
+        final String key = String.format("%s/%d:%d:%s", clientIdentifier.identify(request), gameId, pitId, idempotencyKey);
+        return idempotentResponseCache.execute(key, () -> makeMove(request, gameId, pitId));
+    }
+
+    /**
+     * Handles GET request for the state of a game.
+     * The state is served from the GameReadModel, which is updated shortly after each move is saved,
+     * so a read straight after a move may not reflect it yet; the version tells the states of a game apart.
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId ID of game
+     * @return Json node containing id, url, status, turn, finished, legalMoves, version, scores and lastMove
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    @Operation(summary = "Get the state of a game")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "404")
+    @GetMapping(path = "/{gameId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> getGame(final HttpServletRequest request,
+                                          @PathVariable final int gameId) throws GameNotFoundException {
+        GameReadModel.GameView view = gameReadModel.getView(shardRouter.toLocalId(gameId));
+        return new ResponseEntity<>(createViewNode(request.getRequestURL().toString(), gameId, view), HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET request of a client waiting for the next change to a game, typically the opponent's move.
+     * The request is held open without a thread until the game has a version later than afterVersion,
+     * then answered with status 200 and the state of the game as for GET /games/{gameId}.
+     * Answered at once if the game is already past afterVersion. Returns status 204 if the game has not changed
+     * within the wait, after which the client may wait again.
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId ID of game
+     * @param afterVersion latest version of the game known to the client
+     * @param wait seconds to wait for a change, capped at the configured maximum
+     * @return deferred Json response containing id, url, status, turn, finished, legalMoves, version, scores and lastMove
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    @Operation(summary = "Wait for the next change to a game")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "204")
+    @ApiResponse(responseCode = "404")
+    @GetMapping(path = "/{gameId}/next", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<Object>> awaitNext(final HttpServletRequest request,
+                                                            @PathVariable final int gameId,
+                                                            @RequestParam final long afterVersion,
+                                                            @RequestParam(defaultValue = "25") final long wait)
+            throws GameNotFoundException {
+        final String url = request.getRequestURL().toString();
+        return moveWaiters.await(shardRouter.toLocalId(gameId), afterVersion, wait,
+                view -> new ResponseEntity<>(createViewNode(url, gameId, view), HttpStatus.OK));
+    }
+
+    /**
+     * Handles GET request for the moves made in a game, with the pits after each move rebuilt by replay.
+     * The moves are those of the game in the GameReadModel, so like GET /games/{gameId} they may lag a move
+     * saved moments before; the version tells which state of the game they are of.
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId ID of game
+     * @return Json node containing id, url, version and moves, each with pit, capture, endGame and the pits after it
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    @Operation(summary = "Get the moves made in a game")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "404")
+    @GetMapping(path = "/{gameId}/history", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> getHistory(final HttpServletRequest request,
+                                             @PathVariable final int gameId) throws GameNotFoundException {
+        GameReadModel.GameView view = gameReadModel.getView(shardRouter.toLocalId(gameId));
+        List<MoveHistory.Move> moves = view.getMoves();
+        List<int[]> pits = gameService.replayPits(moves);
 
         ObjectNode jsonNode = objectMapper.createObjectNode();
-        jsonNode.put("id", String.valueOf(game.getId()));
+        jsonNode.put("id", String.valueOf(gameId));
+        jsonNode.put("url", request.getRequestURL().toString());
+        jsonNode.put("version", view.getVersion());
+        ArrayNode movesNode = jsonNode.putArray("moves");
+        for (int i = 0; i < moves.size(); i++) {
+            ObjectNode moveNode = movesNode.addObject();
+            moveNode.put("pit", moves.get(i).getPitIndex() + 1);
+            moveNode.put("capture", moves.get(i).isCapture());
+            moveNode.put("endGame", moves.get(i).isEndGame());
+            ArrayNode pitsNode = moveNode.putArray("pits");
+            for (int stones : pits.get(i)) {
+                pitsNode.add(stones);
+            }
+        }
+
+        return new ResponseEntity<>(jsonNode, HttpStatus.OK);
+    }
+
+    /**
+     * Handles GET request of spectators watching a game.
+     * The body is the board of the game in the GameReadModel, serialized once per version of the game
+     * and the same bytes served to every spectator.
+     *
+     * @param gameId ID of game
+     * @return Json record containing id, pits, turn, finished and updatedAt
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    @Operation(summary = "Watch the board of a game")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "404")
+    @GetMapping(path = "/{gameId}/spectate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> spectate(@PathVariable final int gameId) throws GameNotFoundException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(gameReadModel.getView(shardRouter.toLocalId(gameId)).getRecord(gameId));
+    }
+
+    /**
+     * Handles POST request to take back the last move of a game
+     * Returns status 200 if successful, 404 if no game is found, 400 if there is no move to undo or the game has finished
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId ID of game
+     * @return Json node containing id, url, status, turn, finished and legalMoves
+     * @throws IllegalGameMoveException if there is no move to undo or the game has finished
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    @Operation(summary = "Take back the last move")
+    @ApiResponse(responseCode = "200")
+    @ApiResponse(responseCode = "400")
+    @ApiResponse(responseCode = "404")
+    @ApiResponse(responseCode = "409")
+    @PostMapping(path = "/{gameId}/undo", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> undo(final HttpServletRequest request,
+                                       @PathVariable final int gameId)
+            throws IllegalGameMoveException, GameNotFoundException {
+        GameEntity game = gameService.undoMove(shardRouter.toLocalId(gameId));
+        return new ResponseEntity<>(createGameNode(request, gameId, game), HttpStatus.OK);
+    }
+
+    /**
+     * Makes the move and builds the response for it
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId public ID of game
+     * @param pitId Integer representing position of pit in game
+     * @return Json node containing id, url, status, turn, finished and legalMoves
+     * @throws IllegalGameMoveException if pitId is invalid or played out of turn
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    private ResponseEntity<Object> makeMove(final HttpServletRequest request, final int gameId, final int pitId)
+            throws IllegalGameMoveException, GameNotFoundException {
+        GameEntity game = gameService.makeMove(shardRouter.toLocalId(gameId), pitId - 1);
+        return new ResponseEntity<>(createGameNode(request, gameId, game), HttpStatus.OK);
+    }
+
+    /**
+     * Builds the Json representation of a game's state
+     *
+     * @param request incoming HttpServletRequest
+     * @param gameId public ID of game
+     * @param game game to represent
+     * @return Json node containing id, url, status, turn, finished and legalMoves
+     */
+    private ObjectNode createGameNode(final HttpServletRequest request, final int gameId, final GameEntity game) {
+        ObjectNode jsonNode = objectMapper.createObjectNode();
+        jsonNode.put("id", String.valueOf(gameId));
         jsonNode.put("url", request.getRequestURL().toString());
         ObjectNode status = objectMapper.valueToTree(game.getFormattedStatus());
         jsonNode.set("status", status);
+        jsonNode.put("turn", game.getTurn());
+        jsonNode.put("finished", game.isFinished());
+        jsonNode.put("legalMoves", gameService.findLegalMoves(game));
+        return jsonNode;
+    }
 
-        return new ResponseEntity<>(jsonNode, HttpStatus.OK);
+    /**
+     * Builds the Json representation of a game's read model view
+     *
+     * @param url URL of the request
+     * @param gameId public ID of game
+     * @param view view of the game
+     * @return Json node containing id, url, status, turn, finished, legalMoves, version, scores and lastMove
+     */
+    private ObjectNode createViewNode(final String url, final int gameId, final GameReadModel.GameView view) {
+        ObjectNode jsonNode = objectMapper.createObjectNode();
+        jsonNode.put("id", String.valueOf(gameId));
+        jsonNode.put("url", url);
+        ObjectNode status = objectMapper.valueToTree(view.getStatus());
+        jsonNode.set("status", status);
+        jsonNode.put("turn", view.getTurn());
+        jsonNode.put("finished", view.isFinished());
+        jsonNode.put("legalMoves", view.getLegalMoves());
+        jsonNode.put("version", view.getVersion());
+        ObjectNode scores = jsonNode.putObject("scores");
+        scores.put("1", view.getPlayerOneScore());
+        scores.put("2", view.getPlayerTwoScore());
+        if (view.getLastMovePit() != null) {
+            ObjectNode lastMove = jsonNode.putObject("lastMove");
+            lastMove.put("pit", view.getLastMovePit());
+            lastMove.put("capture", view.isLastMoveCapture());
+        }
+        return jsonNode;
     }
 }
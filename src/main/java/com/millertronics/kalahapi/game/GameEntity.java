@@ -4,11 +4,16 @@ import com.millertronics.kalahapi.exceptions.GameStatusViolationException;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Version;
 import javax.validation.constraints.Pattern;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -24,9 +29,13 @@ import java.util.stream.Stream;
 @Entity
 public class GameEntity {
 
-    private static final int PIT_SIZE = 14;
+    public static final int PIT_SIZE = 14;
     private static final int DEFAULT_STONE_COUNT = 6;
 
+    public static final int NO_PLAYER = 0;
+    public static final int PLAYER_ONE = 1;
+    public static final int PLAYER_TWO = 2;
+
     /**
      * Database ID
      */
@@ -42,16 +51,133 @@ public class GameEntity {
     @Pattern(regexp = "\\d+(:\\d+)+:\\d+")
     private String status;
 
+    /**
+     * Player to move next: PLAYER_ONE owns the pits before the first kalah pit, PLAYER_TWO the rest.
+     * NO_PLAYER before the opening move, when either player may start, and once the game has finished.
+     */
+    @Getter
+    @Setter
+    private int turn = NO_PLAYER;
+
+    /**
+     * Whether the game has ended with all stones collected to the kalah pits
+     */
+    @Getter
+    private boolean finished;
+
+    /**
+     * Zero-based array index of the pit the game was opened from, null before the first move
+     */
+    @Getter
+    private Integer openingPit;
+
+    /**
+     * Number of moves made in the game
+     */
+    @Getter
+    private int moveCount;
+
+    /**
+     * Moves made in the game, encoded by MoveHistory
+     */
+    @Column(length = 4096)
+    private byte[] history;
+
+    /**
+     * When the game was last saved, used to find abandoned games
+     */
+    @Getter
+    private Instant updatedAt;
+
+    /**
+     * Version of the game, 1 when created and raised by every save, so a later state of the game always has a
+     * higher version. Checked when the game is saved: a save of a game changed since it was read fails with an
+     * OptimisticLockingFailureException instead of overwriting the change.
+     */
+    @Version
+    @Getter
+    private long version = 1;
+
 
     /**
      * Constructor initializes a game with 7x7 pits with 6 stones added to every non-kalah pits
      */
     public GameEntity() {
+        setStatus(createInitialPits());
+    }
+
+    /**
+     * Creates the pits of a new game: 6 stones in every non-kalah pit
+     *
+     * @return integer array representation of the pits of a new game
+     */
+    public static int[] createInitialPits() {
         int[] pits = new int[PIT_SIZE];
         Arrays.fill(pits, DEFAULT_STONE_COUNT);
         pits[PIT_SIZE / 2 - 1] = 0;
         pits[PIT_SIZE - 1] = 0;
-        setStatus(pits);
+        return pits;
+    }
+
+    /**
+     * Adds a move to the history of the game, remembering the pit of the opening move.
+     * Called once the pits have been updated, so the move ended the game if the game is now finished.
+     *
+     * @param pitIndex zero-based array index of the pit the move was made from
+     * @param capture whether the move captured the stones of the opposite pit
+     */
+    public void recordMove(final int pitIndex, final boolean capture) {
+        if (openingPit == null) {
+            openingPit = pitIndex;
+        }
+        moveCount++;
+        history = MoveHistory.append(history, pitIndex, capture, finished);
+    }
+
+    /**
+     * Takes back the last move of the game
+     *
+     * @param pits integer array representation of the pits before the last move
+     * @param turn player to move before the last move
+     * @throws GameStatusViolationException if no move has been made
+     */
+    public void undoLastMove(final int[] pits, final int turn) throws GameStatusViolationException {
+        if (moveCount == 0) {
+            throw new GameStatusViolationException("No move to undo");
+        }
+        updateStatus(pits);
+        this.turn = turn;
+        history = MoveHistory.removeLast(history);
+        if (--moveCount == 0) {
+            openingPit = null;
+        }
+    }
+
+    /**
+     * Gets the moves made in the game
+     *
+     * @return moves in the order they were played
+     */
+    List<MoveHistory.Move> getMoves() {
+        return MoveHistory.decode(history);
+    }
+
+    /**
+     * Gets the encoded moves, replaced on every change rather than modified, so they can be shared
+     *
+     * @return moves encoded by MoveHistory, null before the first move
+     */
+    byte[] getHistory() {
+        return history;
+    }
+
+    /**
+     * Stamps the time of the change whenever the game is saved
+     */
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
     }
 
     /**
@@ -66,6 +192,7 @@ public class GameEntity {
 
     /**
      * Validated conversion of an integer array representation of pits to colon-delimited string
+     * The game is marked as finished once every non-kalah pit is empty.
      * Throws an exception if the input array is different size to the array representation of the current game pits
      *
      * @param pits integer array representation of pits
@@ -76,6 +203,9 @@ public class GameEntity {
             throw new GameStatusViolationException(String.format("Cannot change size of pits: %d to %d", getPits().size(), pits.length));
         }
         setStatus(pits);
+        finished = IntStream.range(0, pits.length)
+                .filter(i -> i != pits.length / 2 - 1 && i != pits.length - 1)
+                .allMatch(i -> pits[i] == 0);
     }
 
     /**
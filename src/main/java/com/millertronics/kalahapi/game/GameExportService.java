@@ -0,0 +1,82 @@
+package com.millertronics.kalahapi.game;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams games out as newline-delimited JSON in constant memory.
+ * Games are read through a forward-only cursor and detached as soon as they are written,
+ * so the persistence context never holds more than one of them.
+ */
+@Service
+public class GameExportService {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final GameRepository gameRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+
+    public GameExportService(final GameRepository gameRepository,
+                             final EntityManager entityManager,
+                             final PlatformTransactionManager transactionManager,
+                             final ShardRouter shardRouter) {
+        this.gameRepository = gameRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Writes every game with a public ID within the range, one JSON record per line, in ID order
+     *
+     * @param fromId lowest public game ID, inclusive
+     * @param toId highest public game ID, inclusive
+     * @param out stream to write to, left open
+     * @return number of games written
+     */
+    public long export(final int fromId, final int toId, final OutputStream out) {
+        Long written = transactionTemplate.execute(status -> {
+            try (Stream<GameEntity> games = gameRepository.streamByIdRange(
+                    shardRouter.floorLocalId(Math.max(fromId, 0)), shardRouter.floorLocalId(toId));
+                 JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+
+                long count = 0;
+                Iterator<GameEntity> iterator = games.iterator();
+                while (iterator.hasNext()) {
+                    final GameEntity game = iterator.next();
+                    final int publicId = shardRouter.toPublicId(game.getId());
+                    if (publicId >= fromId && publicId <= toId) {
+                        GameJsonRecords.write(generator, publicId, game);
+                        generator.writeRaw('\n');
+                        if (++count % FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    }
+                    entityManager.detach(game);
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write game export", e);
+            }
+        });
+        return written == null ? 0 : written;
+    }
+}
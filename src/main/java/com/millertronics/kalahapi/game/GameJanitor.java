@@ -0,0 +1,108 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Background job removing finished and abandoned games from the live table.
+ * Expired games are archived in batches to the GameArchive, then deleted with one statement per batch.
+ * A game moved after it was archived is not deleted; the stale copy in the archive is harmless.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+@ConditionalOnProperty(prefix = "kalah.janitor", name = "enabled", matchIfMissing = true)
+public class GameJanitor {
+
+    private final GameRepository gameRepository;
+    private final GameArchive gameArchive;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final Duration finishedTtl;
+    private final Duration idleTtl;
+    private final int batchSize;
+
+    /**
+     * @param gameRepository live game repository
+     * @param gameArchive archive expired games are written to
+     * @param eventPublisher publisher of GamesEvictedEvent
+     * @param finishedTtl how long finished games are kept after their last move
+     * @param idleTtl how long unfinished games are kept without a move
+     * @param batchSize number of games archived and deleted at a time
+     */
+    @Autowired
+    public GameJanitor(final GameRepository gameRepository,
+                       final GameArchive gameArchive,
+                       final ApplicationEventPublisher eventPublisher,
+                       @Value("${kalah.janitor.finished-ttl:PT10M}") final Duration finishedTtl,
+                       @Value("${kalah.janitor.idle-ttl:PT24H}") final Duration idleTtl,
+                       @Value("${kalah.janitor.batch-size:500}") final int batchSize) {
+        this(gameRepository, gameArchive, eventPublisher, Clock.systemUTC(), finishedTtl, idleTtl, batchSize);
+    }
+
+    GameJanitor(final GameRepository gameRepository,
+                final GameArchive gameArchive,
+                final ApplicationEventPublisher eventPublisher,
+                final Clock clock,
+                final Duration finishedTtl,
+                final Duration idleTtl,
+                final int batchSize) {
+        this.gameRepository = gameRepository;
+        this.gameArchive = gameArchive;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+        this.finishedTtl = finishedTtl;
+        this.idleTtl = idleTtl;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Archives and deletes expired games batch by batch until none are left
+     *
+     * @return number of games deleted
+     */
+    @Scheduled(fixedDelayString = "${kalah.janitor.interval-ms:60000}",
+            initialDelayString = "${kalah.janitor.interval-ms:60000}")
+    public int sweep() {
+        final Instant now = clock.instant();
+        final Instant finishedBefore = now.minus(finishedTtl);
+        final Instant idleBefore = now.minus(idleTtl);
+
+        int deleted = 0;
+        List<GameEntity> batch;
+        do {
+            batch = gameRepository.findExpired(finishedBefore, idleBefore, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                gameArchive.write(batch);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to archive games, none were deleted", e);
+            }
+            final List<Integer> ids = batch.stream().map(GameEntity::getId).collect(Collectors.toList());
+            deleted += gameRepository.deleteExpired(ids, finishedBefore, idleBefore);
+            eventPublisher.publishEvent(new GamesEvictedEvent(ids));
+        } while (batch.size() == batchSize);
+
+        if (deleted > 0) {
+            log.info("Archived and deleted {} expired games", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,96 @@
+package com.millertronics.kalahapi.game;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * JSON records of a game, as written to archives, exports and spectators
+ */
+final class GameJsonRecords {
+
+    private GameJsonRecords() {
+    }
+
+    /**
+     * Writes one game as a flat JSON object
+     *
+     * @param generator generator to write to
+     * @param id ID to write for the game
+     * @param game game to write
+     * @throws IOException if the record cannot be written
+     */
+    static void write(final JsonGenerator generator, final int id, final GameEntity game) throws IOException {
+        generator.writeStartObject();
+        writeBoard(generator, id, game);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes one game as a JSON object holding everything needed to restore or audit it:
+     * the fields written by write, plus version, moveCount, the one-based openingPit and the moves,
+     * each with pit, capture and endGame
+     *
+     * @param generator generator to write to
+     * @param id ID to write for the game
+     * @param game game to write
+     * @throws IOException if the record cannot be written
+     */
+    static void writeArchived(final JsonGenerator generator, final int id, final GameEntity game) throws IOException {
+        generator.writeStartObject();
+        writeBoard(generator, id, game);
+        generator.writeNumberField("version", game.getVersion());
+        generator.writeNumberField("moveCount", game.getMoveCount());
+        if (game.getOpeningPit() != null) {
+            generator.writeNumberField("openingPit", game.getOpeningPit() + 1);
+        }
+        generator.writeArrayFieldStart("moves");
+        for (MoveHistory.Move move : game.getMoves()) {
+            generator.writeStartObject();
+            generator.writeNumberField("pit", move.getPitIndex() + 1);
+            generator.writeBooleanField("capture", move.isCapture());
+            generator.writeBooleanField("endGame", move.isEndGame());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Writes the read model view of a game as the same flat JSON object as write
+     *
+     * @param generator generator to write to
+     * @param id ID to write for the game
+     * @param view view to write
+     * @throws IOException if the record cannot be written
+     */
+    static void write(final JsonGenerator generator, final int id, final GameReadModel.GameView view) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", id);
+        generator.writeArrayFieldStart("pits");
+        for (int stones : view.getPits()) {
+            generator.writeNumber(stones);
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("turn", view.getTurn());
+        generator.writeBooleanField("finished", view.isFinished());
+        if (view.getUpdatedAt() != null) {
+            generator.writeStringField("updatedAt", view.getUpdatedAt().toString());
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeBoard(final JsonGenerator generator, final int id, final GameEntity game) throws IOException {
+        generator.writeNumberField("id", id);
+        generator.writeArrayFieldStart("pits");
+        for (Integer stones : game.getPits()) {
+            generator.writeNumber(stones);
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("turn", game.getTurn());
+        generator.writeBooleanField("finished", game.isFinished());
+        if (game.getUpdatedAt() != null) {
+            generator.writeStringField("updatedAt", game.getUpdatedAt().toString());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by GameService once a move has been saved
+ */
+@Getter
+@AllArgsConstructor
+public class GameMovedEvent {
+
+    /**
+     * Game after the move
+     */
+    private final GameEntity game;
+
+    /**
+     * Zero-based array index of the pit the move was made from
+     */
+    private final int pitIndex;
+
+    /**
+     * Whether the last stone captured the stones of the opposite pit
+     */
+    private final boolean capture;
+}
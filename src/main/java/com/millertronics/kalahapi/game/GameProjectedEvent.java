@@ -0,0 +1,17 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by GameReadModel once the view of a game has been replaced by the view of a later version
+ */
+@Getter
+@AllArgsConstructor
+public class GameProjectedEvent {
+
+    /**
+     * View now served for the game
+     */
+    private final GameReadModel.GameView view;
+}
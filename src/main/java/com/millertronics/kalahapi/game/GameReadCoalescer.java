@@ -0,0 +1,84 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight loading of games for read-only requests.<br />
+ * Concurrent reads of the same game share one in-flight repository load and its result,
+ * so a burst of spectators on a hot game costs one query rather than one per request.
+ * Nothing is kept once the load completes: the next read after it loads the game again.
+ * Games returned are shared between callers and must not be modified; moves load their game through GameService.
+ */
+@Component
+public class GameReadCoalescer {
+
+    private final Map<Integer, CompletableFuture<Optional<GameEntity>>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final GameRepository gameRepository;
+
+    public GameReadCoalescer(final GameRepository gameRepository) {
+        this.gameRepository = gameRepository;
+    }
+
+    /**
+     * Finds a game by its ID, joining a load of the same game already in flight if there is one
+     *
+     * @param gameId entity ID of the game
+     * @return gameEntity found, not to be modified
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    public GameEntity findGame(final int gameId) throws GameNotFoundException {
+        final CompletableFuture<Optional<GameEntity>> load = new CompletableFuture<>();
+        final CompletableFuture<Optional<GameEntity>> existing = inFlight.putIfAbsent(gameId, load);
+        final Optional<GameEntity> game;
+        if (existing != null) {
+            coalesced.increment();
+            game = join(existing);
+        } else {
+            loads.increment();
+            try {
+                game = gameRepository.findById(gameId);
+                load.complete(game);
+            } catch (RuntimeException e) {
+                load.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(gameId, load);
+            }
+        }
+        return game.orElseThrow(() -> new GameNotFoundException("Game not found for ID: " + gameId));
+    }
+
+    /**
+     * Gets how many reads went to the repository and how many shared a load in flight
+     *
+     * @return map containing loads and coalesced counts
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("loads", loads.sum());
+        metrics.put("coalesced", coalesced.sum());
+        return metrics;
+    }
+
+    private static Optional<GameEntity> join(final CompletableFuture<Optional<GameEntity>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
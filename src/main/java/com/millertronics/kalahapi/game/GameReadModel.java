@@ -0,0 +1,326 @@
+package com.millertronics.kalahapi.game;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import com.millertronics.kalahapi.util.SingleThreadExecutors;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read model of games, kept apart from the game table and projected from it asynchronously.<br />
+ * Once a move or an undo has been saved, the game is handed to a projector thread which builds a denormalized
+ * view of it (pit map, scores, legal moves, last move, encoded moves and version), so game, history and spectator
+ * reads are all answered from it without touching the repository or the move path. Views are replaced only by views of a later version, whatever order the
+ * changes are projected in.<br />
+ * Changes wait in a bounded queue; when it is full the thread saving the change projects it itself,
+ * which bounds the lag behind the game table. The lag is measured from the event to the view being visible.
+ * Each view that replaces an earlier one is announced with a GameProjectedEvent.
+ * Spectators are served the JSON record of the view, serialized on the first request for it.
+ */
+@Component
+public class GameReadModel {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Map<Integer, GameView> views = new ConcurrentHashMap<>();
+    private final LongAdder projected = new LongAdder();
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final GameStatusCalculator gameStatusCalculator;
+    private final GameReadCoalescer gameReadCoalescer;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolExecutor projector;
+    private final Executor executor;
+
+    /**
+     * @param gameStatusCalculator calculator of the legal moves of a view
+     * @param gameReadCoalescer loader of games not projected since this node started
+     * @param eventPublisher publisher of the views projected
+     * @param queueCapacity number of changes waiting to be projected before changes are projected by their writers
+     */
+    @Autowired
+    public GameReadModel(final GameStatusCalculator gameStatusCalculator,
+                         final GameReadCoalescer gameReadCoalescer,
+                         final ApplicationEventPublisher eventPublisher,
+                         @Value("${kalah.projection.queue-capacity:10000}") final int queueCapacity) {
+        this.gameStatusCalculator = gameStatusCalculator;
+        this.gameReadCoalescer = gameReadCoalescer;
+        this.eventPublisher = eventPublisher;
+        this.projector = SingleThreadExecutors.create("game-projector", queueCapacity);
+        this.executor = projector;
+    }
+
+    /**
+     * Read model projecting on the given executor
+     */
+    GameReadModel(final GameStatusCalculator gameStatusCalculator,
+                  final GameReadCoalescer gameReadCoalescer,
+                  final ApplicationEventPublisher eventPublisher,
+                  final Executor executor) {
+        this.gameStatusCalculator = gameStatusCalculator;
+        this.gameReadCoalescer = gameReadCoalescer;
+        this.eventPublisher = eventPublisher;
+        this.projector = null;
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the view of a game.
+     * The game is loaded and projected on the calling thread only if it has not been projected since this node started.
+     * The view may be behind a change saved moments before, by the lag reported in the metrics.
+     *
+     * @param gameId entity ID of the game
+     * @return latest projected view of the game
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    public GameView getView(final int gameId) throws GameNotFoundException {
+        GameView view = views.get(gameId);
+        if (view != null) {
+            return view;
+        }
+        return store(project(gameReadCoalescer.findGame(gameId)));
+    }
+
+    /**
+     * Queues the projection of a game after a move
+     *
+     * @param event event published after the move was saved
+     */
+    @EventListener
+    public void onGameMoved(final GameMovedEvent event) {
+        submit(event.getGame());
+    }
+
+    /**
+     * Queues the projection of a game after an undo
+     *
+     * @param event event published after the undo was saved
+     */
+    @EventListener
+    public void onGameUndone(final GameUndoneEvent event) {
+        submit(event.getGame());
+    }
+
+    /**
+     * Drops the views of games that are no longer live
+     *
+     * @param event event published after the games were evicted
+     */
+    @EventListener
+    public void onGamesEvicted(final GamesEvictedEvent event) {
+        event.getGameIds().forEach(views::remove);
+    }
+
+    /**
+     * Gets how many changes were projected, how many are waiting and how far behind the game table the views were
+     *
+     * @return map containing projected, pending, and the last, average and maximum lag in microseconds
+     */
+    public Map<String, Object> getMetrics() {
+        final long count = projected.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("projected", count);
+        metrics.put("pending", projector == null ? 0 : projector.getQueue().size());
+        metrics.put("lastLagMicros", TimeUnit.NANOSECONDS.toMicros(lastLagNanos.get()));
+        metrics.put("averageLagMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLagNanos.sum() / count));
+        metrics.put("maxLagMicros", TimeUnit.NANOSECONDS.toMicros(maxLagNanos.get()));
+        return metrics;
+    }
+
+    /**
+     * Gets the number of games with a view
+     *
+     * @return number of views held
+     */
+    public int size() {
+        return views.size();
+    }
+
+    /**
+     * Puts back a view restored from a snapshot, without announcing it
+     *
+     * @param view view of the game as it was when the snapshot was written
+     */
+    void restore(final GameView view) {
+        store(view);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (projector != null) {
+            projector.shutdown();
+        }
+    }
+
+    private void submit(final GameEntity game) {
+        final long savedAt = System.nanoTime();
+        executor.execute(() -> {
+            final GameView view = project(game);
+            if (store(view) == view) {
+                eventPublisher.publishEvent(new GameProjectedEvent(view));
+            }
+            final long lag = System.nanoTime() - savedAt;
+            projected.increment();
+            totalLagNanos.add(lag);
+            lastLagNanos.set(lag);
+            maxLagNanos.accumulateAndGet(lag, Math::max);
+        });
+    }
+
+    /**
+     * Stores a view unless a view of a later version of the game is already held
+     *
+     * @return view held for the game afterwards
+     */
+    private GameView store(final GameView view) {
+        return views.merge(view.getId(), view,
+                (existing, candidate) -> existing.getVersion() > candidate.getVersion() ? existing : candidate);
+    }
+
+    /**
+     * Builds the view of a game
+     *
+     * @param game game saved
+     * @return denormalized view of the game
+     */
+    GameView project(final GameEntity game) {
+        final List<Integer> pits = game.getPits();
+        final List<MoveHistory.Move> moves = game.getMoves();
+        final MoveHistory.Move lastMove = moves.isEmpty() ? null : moves.get(moves.size() - 1);
+        return new GameView(game.getId(), game.getVersion(),
+                pits.stream().mapToInt(Integer::intValue).toArray(),
+                game.getTurn(),
+                game.isFinished(),
+                gameStatusCalculator.findLegalMoves(game),
+                pits.get(pits.size() / 2 - 1),
+                pits.get(pits.size() - 1),
+                lastMove == null ? null : lastMove.getPitIndex() + 1,
+                lastMove != null && lastMove.isCapture(),
+                game.getUpdatedAt(),
+                game.getHistory());
+    }
+
+    /**
+     * Denormalized state of a game as last projected, shared between readers and not to be modified.
+     * Views are kept compact, with the pit map and the spectator record built on request,
+     * so that millions of games fit in memory.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static final class GameView {
+
+        /**
+         * Entity ID of the game
+         */
+        private final int id;
+
+        /**
+         * Version of the game the view was projected from
+         */
+        private final long version;
+
+        private final int[] pits;
+        private final int turn;
+        private final boolean finished;
+
+        /**
+         * Bitmask where bit n is set if the pit at zero-based index n can be played
+         */
+        private final int legalMoves;
+
+        /**
+         * Stones in the kalah pit of each player
+         */
+        private final int playerOneScore;
+        private final int playerTwoScore;
+
+        /**
+         * One-based pit position of the last move, null before the first move
+         */
+        private final Integer lastMovePit;
+
+        private final boolean lastMoveCapture;
+        private final Instant updatedAt;
+
+        /**
+         * Moves made in the game, encoded by MoveHistory and shared with the game, null before the first move
+         */
+        @Getter(AccessLevel.PACKAGE)
+        private final byte[] history;
+
+        /**
+         * Spectator record, serialized on the first request for it
+         */
+        @Getter(AccessLevel.NONE)
+        private volatile byte[] record;
+
+        /**
+         * Gets the view as the flat JSON record served to spectators, the same bytes for every spectator of this version.
+         * A later version of the game is a new view, so a record never shows an earlier version than its view.
+         *
+         * @param publicId public ID of the game, written as its id
+         * @return UTF-8 JSON record containing id, pits, turn, finished and updatedAt, not to be modified
+         */
+        public byte[] getRecord(final int publicId) {
+            byte[] serialized = record;
+            if (serialized == null) {
+                // spectators racing on the first request serialize the same bytes, so either may be kept
+                ByteArrayOutputStream out = new ByteArrayOutputStream(192);
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                    GameJsonRecords.write(generator, publicId, this);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                serialized = out.toByteArray();
+                record = serialized;
+            }
+            return serialized;
+        }
+
+        /**
+         * Gets the moves made in the game
+         *
+         * @return moves in the order they were played
+         */
+        List<MoveHistory.Move> getMoves() {
+            return MoveHistory.decode(history);
+        }
+
+        /**
+         * Gets the pits keyed by one-based pit position, as returned by GameEntity.getFormattedStatus()
+         *
+         * @return Map representation of the pits in pit order
+         */
+        public Map<String, String> getStatus() {
+            Map<String, String> status = new LinkedHashMap<>();
+            for (int i = 0; i < pits.length; i++) {
+                status.put(String.valueOf(i + 1), String.valueOf(pits[i]));
+            }
+            return status;
+        }
+    }
+}
@@ -1,11 +1,78 @@
 package com.millertronics.kalahapi.game;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Data repository for GameEntity
  */
 @Repository
 public interface GameRepository extends JpaRepository<GameEntity, Integer> {
+
+    /**
+     * Streams the games within an ID range from a forward-only cursor, fetching 500 rows at a time.
+     * Must be called within a transaction and the stream closed after use.
+     *
+     * @param fromId lowest ID, inclusive
+     * @param toId highest ID, inclusive
+     * @return read-only games in ID order
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")
+    })
+    @Query("select g from GameEntity g where g.id between :fromId and :toId order by g.id")
+    Stream<GameEntity> streamByIdRange(@Param("fromId") int fromId, @Param("toId") int toId);
+
+    /**
+     * Finds games which are finished and untouched since finishedBefore, or untouched since idleBefore
+     *
+     * @param finishedBefore cut-off for finished games
+     * @param idleBefore cut-off for abandoned games
+     * @param pageable batch to fetch
+     * @return expired games in ID order
+     */
+    @Query("select g from GameEntity g"
+            + " where (g.finished = true and g.updatedAt < :finishedBefore) or g.updatedAt < :idleBefore"
+            + " order by g.id")
+    List<GameEntity> findExpired(@Param("finishedBefore") Instant finishedBefore,
+                                 @Param("idleBefore") Instant idleBefore,
+                                 Pageable pageable);
+
+    /**
+     * Deletes the given games with a single statement, skipping any that were updated since they expired
+     *
+     * @param ids IDs of the games to delete
+     * @param finishedBefore cut-off for finished games
+     * @param idleBefore cut-off for abandoned games
+     * @return number of games deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from GameEntity g where g.id in :ids"
+            + " and ((g.finished = true and g.updatedAt < :finishedBefore) or g.updatedAt < :idleBefore)")
+    int deleteExpired(@Param("ids") Collection<Integer> ids,
+                      @Param("finishedBefore") Instant finishedBefore,
+                      @Param("idleBefore") Instant idleBefore);
+
+    /**
+     * Summarizes the game table with a single aggregate query
+     *
+     * @return number of games, sum of their versions and highest ID
+     */
+    @Query("select new com.millertronics.kalahapi.game.GameTableState("
+            + "count(g), coalesce(sum(g.version), 0L), coalesce(max(g.id), 0)) from GameEntity g")
+    GameTableState findTableState();
 }
@@ -1,9 +1,18 @@
 package com.millertronics.kalahapi.game;
 
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import com.millertronics.kalahapi.exceptions.GameCapacityExceededException;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
 import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import com.millertronics.kalahapi.exceptions.GameStatusViolationException;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Service class for GameEntity
@@ -14,19 +23,31 @@ public class GameService {
 
     private final GameRepository gameRepository;
     private final GameStatusCalculator gameStatusCalculator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MoveTransitionCache moveTransitionCache;
+    private final ShardRouter shardRouter;
 
     /**
-     * Initializes a new game and saves to repository
+     * Initializes a new game and saves to repository.
+     * The game is only committed once this node can issue a public ID for it; otherwise the insert is rolled back,
+     * so no game is left in the table that no client can reach.
+     *
      * @return gameEntity created
+     * @throws GameCapacityExceededException if this node cannot issue a public ID for another game
      */
+    @Transactional
     public GameEntity createGame() {
-        return gameRepository.save(new GameEntity());
+        GameEntity game = gameRepository.save(new GameEntity());
+        shardRouter.toPublicId(game.getId());
+        return game;
     }
 
     /**
      * Processes player move on a game.
-     * The game's status is updated after calculation.
-     * The updated game is saved to repository and is returned.
+     * The pit index is range checked before the game is loaded, so malformed moves cost no repository access.
+     * The result of the move is taken from the MoveTransitionCache when the same move has been made from the same board.
+     * The game's status and the player to move next are updated after calculation.
+     * The updated game is saved to repository, announced with a GameMovedEvent and is returned.
      * Exceptions are thrown if no game is found by the provided gameId
      * or if the move made using the provided pitIndex is illegal.
      *
@@ -34,17 +55,123 @@ public class GameService {
      * @param pitIndex zero-based array index of the pit
      * @return gameEntity after status update
      * @throws GameNotFoundException if gameId doesn't match an existing game
-     * @throws IllegalGameMoveException if pitIndex is invalid
+     * @throws IllegalGameMoveException if pitIndex is invalid, out of turn or the game has finished
      */
     public GameEntity makeMove(final int gameId, final int pitIndex) throws GameNotFoundException, IllegalGameMoveException {
-        GameEntity game = gameRepository.findById(gameId)
+        GameStatusCalculator.checkPitRange(pitIndex, GameEntity.PIT_SIZE);
+
+        GameEntity game = findGame(gameId);
+
+        MoveTransitionCache.Transition transition = moveTransitionCache.apply(game, pitIndex);
+        game.updateStatus(transition.getPits());
+        game.setTurn(transition.getNextTurn());
+        game.recordMove(pitIndex, transition.isCapture());
+
+        GameEntity saved = gameRepository.save(game);
+        eventPublisher.publishEvent(new GameMovedEvent(saved, pitIndex, transition.isCapture()));
+        return saved;
+    }
+
+    /**
+     * Finds a game by its ID
+     *
+     * @param gameId entity ID of the game
+     * @return gameEntity found
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    public GameEntity findGame(final int gameId) throws GameNotFoundException {
+        return gameRepository.findById(gameId)
                 .orElseThrow(() -> new GameNotFoundException("Game not found for ID: " + gameId));
+    }
+
+    /**
+     * Takes back the last move of a game.
+     * The position before the move is rebuilt by replaying the game's history from the initial pits.
+     * The updated game is saved to repository, announced with a GameUndoneEvent and is returned.
+     *
+     * @param gameId entity ID of the game
+     * @return gameEntity after the undo
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     * @throws IllegalGameMoveException if no move has been made or the game has finished
+     */
+    public GameEntity undoMove(final int gameId) throws GameNotFoundException, IllegalGameMoveException {
+        GameEntity game = findGame(gameId);
+        if (game.isFinished()) {
+            throw new IllegalGameMoveException(GameErrorCode.GAME_FINISHED, "Cannot undo a move of a finished game");
+        }
+        List<MoveHistory.Move> moves = game.getMoves();
+        if (moves.isEmpty()) {
+            throw new IllegalGameMoveException(GameErrorCode.NOTHING_TO_UNDO, "No move to undo");
+        }
 
-        int[] newPits = gameStatusCalculator.redistributeStones(game, pitIndex);
-        game.updateStatus(newPits);
+        final MoveHistory.Move undone = moves.get(moves.size() - 1);
+        List<Position> positions = replay(moves.subList(0, moves.size() - 1));
+        Position previous = positions.isEmpty()
+                ? new Position(GameEntity.createInitialPits(), GameEntity.NO_PLAYER)
+                : positions.get(positions.size() - 1);
+        game.undoLastMove(previous.pits, previous.turn);
 
-        return gameRepository.save(game);
+        GameEntity saved = gameRepository.save(game);
+        eventPublisher.publishEvent(new GameUndoneEvent(saved, undone.getPitIndex(), undone.isCapture()));
+        return saved;
     }
 
+    /**
+     * Rebuilds the pits after each move of a game by replaying its moves from the initial pits
+     *
+     * @param moves moves made in the game
+     * @return integer array representation of the pits after each move, in the order the moves were played,
+     * shared with the MoveTransitionCache and not to be modified
+     */
+    List<int[]> replayPits(final List<MoveHistory.Move> moves) {
+        List<int[]> pits = new ArrayList<>();
+        for (Position position : replay(moves)) {
+            pits.add(position.pits);
+        }
+        return pits;
+    }
+
+    /**
+     * Replays moves from the initial pits of a game, carrying the board hash from move to move
+     *
+     * @param moves moves to replay
+     * @return position after each move
+     * @throws GameStatusViolationException if a move of the history cannot be played
+     */
+    private List<Position> replay(final List<MoveHistory.Move> moves) {
+        List<Position> positions = new ArrayList<>(moves.size());
+        int[] pits = GameEntity.createInitialPits();
+        long hash = MoveTransitionCache.hash(pits);
+        for (MoveHistory.Move move : moves) {
+            try {
+                MoveTransitionCache.Transition transition = moveTransitionCache.apply(pits, hash, move.getPitIndex());
+                positions.add(new Position(transition.getPits(), transition.getNextTurn()));
+                pits = transition.getPits();
+                hash = transition.getHash();
+            } catch (IllegalGameMoveException e) {
+                throw new GameStatusViolationException("Move history cannot be replayed: " + e.getMessage());
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Pits and player to move at a point of a game
+     */
+    @AllArgsConstructor
+    private static final class Position {
+        private final int[] pits;
+        private final int turn;
+    }
+
+    /**
+     * Gets the moves the player to move can make in a game
+     *
+     * @param game game to check
+     * @return bitmask where bit n is set if the pit at zero-based index n can be played
+     */
+    public int findLegalMoves(final GameEntity game) {
+        return gameStatusCalculator.findLegalMoves(game);
+    }
 
 }
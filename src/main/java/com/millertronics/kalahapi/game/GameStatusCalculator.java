@@ -1,10 +1,10 @@
 package com.millertronics.kalahapi.game;
 
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
 import lombok.NoArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -17,59 +17,233 @@ public class GameStatusCalculator {
 
     /**
      * Get the updated pits of a given game after moving the stones from a pit specified by an index.
+     * The game must not have finished and the pit must be on the side of the player whose turn it is.
      * Index must be within the pits array must not be either of the kalah pits or an empty pit
      *
      * @param gameEntity game containing the pits to update
      * @param pitIndex zero-based array index of the game pits from which the stone is moved from
      * @return integer array representing the updated pits
-     * @throws IllegalGameMoveException if pitIndex is invalid
+     * @throws IllegalGameMoveException if the game has finished, it is not the player's turn or pitIndex is invalid
      */
     public int[] redistributeStones(final GameEntity gameEntity, final int pitIndex)
             throws IllegalGameMoveException {
+        return sowStones(validateMove(gameEntity, pitIndex), pitIndex);
+    }
+
+    /**
+     * Checks a move can be made in a game: the game must not have finished and the pit must be a non-empty,
+     * non-kalah pit on the side of the player whose turn it is
+     *
+     * @param gameEntity game the move is made in
+     * @param pitIndex zero-based array index of the game pits from which the stone is moved from
+     * @return integer array representing the pits of the game before the move
+     * @throws IllegalGameMoveException if the game has finished, it is not the player's turn or pitIndex is invalid
+     */
+    public int[] validateMove(final GameEntity gameEntity, final int pitIndex) throws IllegalGameMoveException {
+        if (gameEntity.isFinished()) {
+            throw new IllegalGameMoveException(GameErrorCode.GAME_FINISHED, "Game has already finished");
+        }
+        final int[] originalPits = toArray(gameEntity.getPits());
+        validatePitIndex(originalPits, pitIndex);
+
+        final int turn = gameEntity.getTurn();
+        if (turn != GameEntity.NO_PLAYER && turn != findPlayer(pitIndex, originalPits.length)) {
+            throw new IllegalGameMoveException(GameErrorCode.OUT_OF_TURN, String.format("It is player %d's turn", turn));
+        }
+        return originalPits;
+    }
+
+    /**
+     * Get the updated pits after moving the stones from a pit specified by an index, regardless of whose turn it is.
+     * Index must be within the pits array must not be either of the kalah pits or an empty pit
+     *
+     * @param pits integer array representing the game pits, left unchanged
+     * @param pitIndex zero-based array index of the game pits from which the stone is moved from
+     * @return integer array representing the updated pits
+     * @throws IllegalGameMoveException if pitIndex is invalid
+     */
+    public int[] redistributeStones(final int[] pits, final int pitIndex) throws IllegalGameMoveException {
+        validatePitIndex(pits, pitIndex);
+        return sowStones(pits, pitIndex);
+    }
+
+    /**
+     * Works out who plays after a move. The player moves again if their last stone landed in their own kalah pit,
+     * otherwise it is the opponent's turn. Nobody plays after the game has ended.
+     *
+     * @param gameEntity game before the move is applied
+     * @param pitIndex zero-based array index of the pit the move was made from
+     * @param newPits integer array representing the pits after the move
+     * @return the player to move next, or GameEntity.NO_PLAYER if the game has ended
+     */
+    public int calculateNextTurn(final GameEntity gameEntity, final int pitIndex, final int[] newPits) {
+        return calculateNextTurn(gameEntity.getPits().get(pitIndex), pitIndex, newPits);
+    }
+
+    /**
+     * Works out who plays after a move, as calculateNextTurn(GameEntity, int, int[]) but from the number of stones moved
+     *
+     * @param stones number of stones in the pit before the move
+     * @param pitIndex zero-based array index of the pit the move was made from
+     * @param newPits integer array representing the pits after the move
+     * @return the player to move next, or GameEntity.NO_PLAYER if the game has ended
+     */
+    public int calculateNextTurn(final int stones, final int pitIndex, final int[] newPits) {
+        if (isEndGame(newPits)) {
+            return GameEntity.NO_PLAYER;
+        }
+        final int pitSize = newPits.length;
+        final int player = findPlayer(pitIndex, pitSize);
+        final int playerKalahIndex = player == GameEntity.PLAYER_ONE ? pitSize / 2 - 1 : pitSize - 1;
+        final int lastPitIndex = findLastPitIndex(pitIndex, stones, pitSize);
+
+        if (lastPitIndex == playerKalahIndex) {
+            return player;
+        }
+        return player == GameEntity.PLAYER_ONE ? GameEntity.PLAYER_TWO : GameEntity.PLAYER_ONE;
+    }
+
+    /**
+     * Checks if a move captures stones: its last stone lands in an empty, non-kalah pit on the player's side
+     * and the opposite pit holds stones to take.
+     *
+     * @param gameEntity game before the move is applied
+     * @param pitIndex zero-based array index of a playable pit
+     * @return true if the move captures the stones of the opposite pit
+     */
+    public boolean isCapture(final GameEntity gameEntity, final int pitIndex) {
+        return isCapture(toArray(gameEntity.getPits()), pitIndex);
+    }
+
+    /**
+     * Checks if a move captures stones, from the pits alone
+     *
+     * @param pits integer array representing the pits before the move
+     * @param pitIndex zero-based array index of a playable pit
+     * @return true if the move captures the stones of the opposite pit
+     */
+    public boolean isCapture(final int[] pits, final int pitIndex) {
+        final int pitSize = pits.length;
+        final int kalahOne = pitSize / 2 - 1;
+        final int playerKalahIndex = pitIndex < kalahOne ? kalahOne : pitSize - 1;
+        final int stones = pits[pitIndex];
+        // a move going past its own pit has dropped a stone in every pit before its last one
+        if (stones >= pitSize) {
+            return false;
+        }
+        final int lastPitIndex = findLastPitIndex(pitIndex, stones, pitSize);
+
+        // the pit moved from is empty until the last stone of a full lap lands in it, and a move ending
+        // at or before its own pit on the player's side went round the board and dropped a stone opposite
+        return lastPitIndex != kalahOne && lastPitIndex != pitSize - 1
+                && pitIsInPlayerSide(lastPitIndex, playerKalahIndex, kalahOne)
+                && (lastPitIndex == pitIndex || pits[lastPitIndex] == 0)
+                && (lastPitIndex <= pitIndex || pits[findOppositeIndex(lastPitIndex, pitSize)] > 0);
+    }
+
+    /**
+     * Builds a bitmask of the pits the player to move can play.
+     * Bit n is set when the pit at zero-based index n (pit ID n + 1) is a legal move.
+     *
+     * @param gameEntity game to check
+     * @return bitmask of legal moves, zero once the game has finished
+     */
+    public int findLegalMoves(final GameEntity gameEntity) {
+        if (gameEntity.isFinished()) {
+            return 0;
+        }
+        final List<Integer> pits = gameEntity.getPits();
+        final int kalahOne = pits.size() / 2 - 1;
+        final int kalahTwo = pits.size() - 1;
+        final int turn = gameEntity.getTurn();
+
+        int legalMoves = 0;
+        for (int i = 0; i < kalahTwo; i++) {
+            final boolean playersPit = turn == GameEntity.NO_PLAYER || turn == findPlayer(i, pits.size());
+            if (i != kalahOne && playersPit && pits.get(i) > 0) {
+                legalMoves |= 1 << i;
+            }
+        }
+        return legalMoves;
+    }
 
-        List<Integer> originalPits = gameEntity.getPits();
-        final int kalahOne = originalPits.size() / 2 - 1;
-        final int kalahTwo = originalPits.size() - 1;
+    /**
+     * Gets the player owning the side a pit lies on
+     *
+     * @param pitIndex zero-based array index of a pit
+     * @param pitSize size of pit array
+     * @return GameEntity.PLAYER_ONE or GameEntity.PLAYER_TWO
+     */
+    public int findPlayer(final int pitIndex, final int pitSize) {
+        return pitIndex < pitSize / 2 ? GameEntity.PLAYER_ONE : GameEntity.PLAYER_TWO;
+    }
+
+    /**
+     * Checks the index can be played on a board of the given size: within the pits array and not a kalah pit.
+     * Needs no game state, so can be used to reject a move before the game is loaded.
+     *
+     * @param pitIndex zero-based array index
+     * @param pitSize size of pit array
+     * @throws IllegalGameMoveException if pitIndex is out of range or a kalah pit
+     */
+    public static void checkPitRange(final int pitIndex, final int pitSize) throws IllegalGameMoveException {
+        final int kalahOne = pitSize / 2 - 1;
+        final int kalahTwo = pitSize - 1;
 
         if (pitIndex < 0 || pitIndex > kalahTwo) {
-            throw new IllegalGameMoveException(String.format("Invalid index %d selected (out of %d)", pitIndex, kalahTwo));
+            throw new IllegalGameMoveException(GameErrorCode.PIT_OUT_OF_RANGE,
+                    String.format("Invalid index %d selected (out of %d)", pitIndex, kalahTwo));
         }
         if (pitIndex == kalahOne || pitIndex == kalahTwo) {
-            throw new IllegalGameMoveException("Cannot move stones from the kalah pits");
+            throw new IllegalGameMoveException(GameErrorCode.KALAH_PIT, "Cannot move stones from the kalah pits");
         }
-        if (originalPits.get(pitIndex) == 0) {
-            throw new IllegalGameMoveException("Cannot move stones from an empty pit");
+    }
+
+    /**
+     * Checks the index can be played: within the pits array, not a kalah pit and not empty
+     *
+     * @param pits integer array representing the game pits
+     * @param pitIndex zero-based array index
+     * @throws IllegalGameMoveException if pitIndex is invalid
+     */
+    private void validatePitIndex(final int[] pits, final int pitIndex) throws IllegalGameMoveException {
+        checkPitRange(pitIndex, pits.length);
+        if (pits[pitIndex] == 0) {
+            throw new IllegalGameMoveException(GameErrorCode.EMPTY_PIT, "Cannot move stones from an empty pit");
         }
+    }
+
+    /**
+     * Moves the stones from a validated pit index
+     *
+     * @param originalPits integer array representing the game pits, left unchanged
+     * @param pitIndex zero-based array index of a playable pit
+     * @return integer array representing the updated pits
+     */
+    private int[] sowStones(final int[] originalPits, final int pitIndex) {
+        final int kalahOne = originalPits.length / 2 - 1;
+        final int kalahTwo = originalPits.length - 1;
 
         final int playerKalahIndex = pitIndex < kalahOne ? kalahOne : kalahTwo;
         final int oppositeKalahIndex = playerKalahIndex == kalahOne ? kalahTwo : kalahOne;
 
-        final int pitStones = originalPits.get(pitIndex);
-
-        int[] gamePits = new int[originalPits.size()];
-        List<Integer> updatedIndexes = new ArrayList<>(); // or indices?
+        final int pitStones = originalPits[pitIndex];
 
+        // sow on a copy, so that a pit passed more than once by a large pit gets a stone each time
+        int[] gamePits = Arrays.copyOf(originalPits, originalPits.length);
         gamePits[pitIndex] = 0;
-        updatedIndexes.add(pitIndex);
 
-        int offset = pitIndex;
+        int index = pitIndex;
         for (int i = 1; i <= pitStones; i++) {
-            int index = offset + i;
+            index = index == kalahTwo ? 0 : index + 1;
 
             // skip the kalah pit of the opposite player
             if (index == oppositeKalahIndex) {
-                offset++;
-                index++;
-            }
-            // zero the index if we've gone past the edge
-            if (index > kalahTwo) {
-                offset = -i;
-                index = 0;
+                index = index == kalahTwo ? 0 : index + 1;
             }
 
-            // add one stone to the resulting pit - it is updated
-            gamePits[index] = originalPits.get(index) + 1;
-            updatedIndexes.add(index);
+            // add one stone to the resulting pit
+            gamePits[index]++;
 
             // if the last stone added was on an empty player-side, non-kalah pit, take all the stones
             // from the pit on the opposite side
@@ -78,18 +252,9 @@ public class GameStatusCalculator {
             final boolean lastPitIsNonKalah = index != kalahOne && index != kalahTwo;
 
             if (lastPitAddedWasEmpty && lastPitIsInPlayerSide && lastPitIsNonKalah) {
-                final int oppositeIndex = findOppositeIndex(index, originalPits.size());
-                gamePits[index] += originalPits.get(oppositeIndex);
+                final int oppositeIndex = findOppositeIndex(index, originalPits.length);
+                gamePits[index] += gamePits[oppositeIndex];
                 gamePits[oppositeIndex] = 0;
-                updatedIndexes.add(oppositeIndex);
-            }
-
-        }
-
-        // The pits that were unchanged are set to original value
-        for (int i = 0; i < gamePits.length; i++) {
-            if (!updatedIndexes.contains(i)) {
-                gamePits[i] = originalPits.get(i);
             }
         }
 
@@ -97,6 +262,29 @@ public class GameStatusCalculator {
         return checkEndGame(gamePits);
     }
 
+    /**
+     * Finds the index of the pit receiving the last stone when the stones of a pit are moved,
+     * following the same path as the stones: skipping the opposite kalah pit and wrapping past the edge.
+     *
+     * @param pitIndex zero-based array index of the pit the stones are moved from
+     * @param stones number of stones moved
+     * @param pitSize size of pit array
+     * @return index of the pit the last stone lands in
+     */
+    private int findLastPitIndex(final int pitIndex, final int stones, final int pitSize) {
+        final int kalahOne = pitSize / 2 - 1;
+        final int oppositeKalahIndex = pitIndex < kalahOne ? pitSize - 1 : kalahOne;
+
+        int index = pitIndex;
+        for (int i = 0; i < stones; i++) {
+            index = (index + 1) % pitSize;
+            if (index == oppositeKalahIndex) {
+                index = (index + 1) % pitSize;
+            }
+        }
+        return index;
+    }
+
     /**
      * Checks if a given array index corresponds to a position of any of the pits in the player's side.
      *
@@ -138,6 +326,33 @@ public class GameStatusCalculator {
         return kalahOneIndex + range;
     }
 
+    /**
+     * Checks if the game pits are in their end state, i.e. every non-kalah pit is empty
+     *
+     * @param gamePits integer array representing the game pits
+     * @return true if all stones have been collected to the kalah pits
+     */
+    public boolean isEndGame(final int[] gamePits) {
+        final int kalahOne = gamePits.length / 2 - 1;
+        final int kalahTwo = gamePits.length - 1;
+        for (int i = 0; i < kalahTwo; i++) {
+            if (i != kalahOne && gamePits[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts an integer list representation of pits to an integer array
+     *
+     * @param pits integer list representation of pits
+     * @return integer array representation of pits
+     */
+    private int[] toArray(final List<Integer> pits) {
+        return pits.stream().mapToInt(Integer::intValue).toArray();
+    }
+
     /**
      * Checks if the current game pits have reached its end condition (i.e. one side has all its non-kalah pits empty).
      * If end condition is met, the stones from the side with non-empty, non-kalah pits are collected an put in their kalah pit.
@@ -0,0 +1,34 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Summary of the game table which changes whenever a game is created, saved or deleted.
+ * Every save counts up the version of its game, so two states are equal only if nothing was written in between.
+ */
+@Getter
+@EqualsAndHashCode
+public class GameTableState {
+
+    /**
+     * Number of games
+     */
+    private final long games;
+
+    /**
+     * Sum of the versions of all games
+     */
+    private final long versionSum;
+
+    /**
+     * Highest game ID, 0 if there are no games
+     */
+    private final int maxId;
+
+    public GameTableState(final Long games, final Long versionSum, final Integer maxId) {
+        this.games = games;
+        this.versionSum = versionSum;
+        this.maxId = maxId;
+    }
+}
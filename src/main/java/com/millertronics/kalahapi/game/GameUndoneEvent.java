@@ -0,0 +1,27 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by GameService once the last move of a game has been taken back and saved
+ */
+@Getter
+@AllArgsConstructor
+public class GameUndoneEvent {
+
+    /**
+     * Game after the undo
+     */
+    private final GameEntity game;
+
+    /**
+     * Zero-based array index of the pit the undone move was made from
+     */
+    private final int pitIndex;
+
+    /**
+     * Whether the undone move captured the stones of the opposite pit
+     */
+    private final boolean capture;
+}
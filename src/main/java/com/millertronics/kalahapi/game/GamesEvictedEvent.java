@@ -0,0 +1,19 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published once games have been removed from the live table, so anything holding them can let go
+ */
+@Getter
+@AllArgsConstructor
+public class GamesEvictedEvent {
+
+    /**
+     * IDs of the evicted games
+     */
+    private final List<Integer> gameIds;
+}
@@ -0,0 +1,124 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.util.BoundedMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounded, expiring cache of responses keyed by client supplied idempotency keys.
+ * The first request for a key runs the action; retries within the TTL replay its response
+ * and concurrent retries wait for the in-flight request instead of running the action again.
+ * Failed actions are not remembered, so a retry after an error is run again.
+ * Over the bound, expired entries are evicted first, then the earliest iterated ones whose request has completed.
+ */
+@Component
+public class IdempotentResponseCache {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final BoundedMap<String, Entry> entries;
+    private final long ttlNanos;
+
+    /**
+     * @param maxEntries number of keys remembered before the oldest ones are evicted
+     * @param ttl how long a response is replayed for
+     */
+    public IdempotentResponseCache(@Value("${kalah.idempotency.max-entries:100000}") final int maxEntries,
+                                   @Value("${kalah.idempotency.ttl:PT10M}") final Duration ttl) {
+        this.entries = new BoundedMap<>(maxEntries, maxEntries,
+                entry -> entry.expiresAt - System.nanoTime() <= 0 && entry.response.isDone(),
+                entry -> entry.response.isDone());
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Runs the action once per key and replays its response for subsequent calls with the same key.
+     *
+     * @param key idempotency key, already scoped to the request it was sent with
+     * @param action action producing the response
+     * @return response of the action, with REPLAYED_HEADER added when it is a replay
+     * @throws GameNotFoundException if thrown by the action
+     * @throws IllegalGameMoveException if thrown by the action
+     */
+    public ResponseEntity<Object> execute(final String key, final GameAction action)
+            throws GameNotFoundException, IllegalGameMoveException {
+        final Entry entry = new Entry(System.nanoTime() + ttlNanos);
+        while (true) {
+            final Entry existing = entries.putIfAbsent(key, entry);
+            if (existing == null) {
+                break;
+            }
+            if (existing.expiresAt - System.nanoTime() > 0) {
+                return replay(existing);
+            }
+            if (entries.replace(key, existing, entry)) {
+                break;
+            }
+        }
+
+        try {
+            ResponseEntity<Object> response = action.run();
+            entry.response.complete(response);
+            return response;
+        } catch (GameNotFoundException | IllegalGameMoveException | RuntimeException e) {
+            entries.remove(key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of keys currently remembered
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Waits for the original request of an entry and copies its response with REPLAYED_HEADER added
+     */
+    private ResponseEntity<Object> replay(final Entry existing) throws GameNotFoundException, IllegalGameMoveException {
+        final ResponseEntity<Object> original;
+        try {
+            original = existing.response.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof GameNotFoundException) {
+                throw (GameNotFoundException) cause;
+            } else if (cause instanceof IllegalGameMoveException) {
+                throw (IllegalGameMoveException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    /**
+     * Action whose response is cached
+     */
+    @FunctionalInterface
+    public interface GameAction {
+        ResponseEntity<Object> run() throws GameNotFoundException, IllegalGameMoveException;
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<ResponseEntity<Object>> response = new CompletableFuture<>();
+        private final long expiresAt;
+
+        private Entry(final long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
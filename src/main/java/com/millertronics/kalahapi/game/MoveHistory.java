@@ -0,0 +1,122 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameStatusViolationException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact encoding of the moves of a game.<br />
+ *
+ * Each move is stored as one varint of (pitIndex &lt;&lt; 2 | capture &lt;&lt; 1 | endGame),
+ * which takes a single byte for boards of up to 32 pits.
+ * The boards themselves are not stored as they follow deterministically from the moves.
+ */
+final class MoveHistory {
+
+    private static final int CAPTURE_FLAG = 0b10;
+    private static final int END_GAME_FLAG = 0b01;
+    private static final int FLAG_BITS = 2;
+
+    private MoveHistory() {
+    }
+
+    /**
+     * A move decoded from the history
+     */
+    @Getter
+    @AllArgsConstructor
+    static final class Move {
+
+        /**
+         * Zero-based array index of the pit played
+         */
+        private final int pitIndex;
+
+        /**
+         * Whether the move captured the stones of the opposite pit
+         */
+        private final boolean capture;
+
+        /**
+         * Whether the move ended the game
+         */
+        private final boolean endGame;
+    }
+
+    /**
+     * Appends a move to an encoded history
+     *
+     * @param history encoded history, may be null for an empty history
+     * @param pitIndex zero-based array index of the pit played
+     * @param capture whether the move captured the stones of the opposite pit
+     * @param endGame whether the move ended the game
+     * @return new encoded history
+     */
+    static byte[] append(final byte[] history, final int pitIndex, final boolean capture, final boolean endGame) {
+        final byte[] current = history == null ? new byte[0] : history;
+        int value = pitIndex << FLAG_BITS | (capture ? CAPTURE_FLAG : 0) | (endGame ? END_GAME_FLAG : 0);
+
+        byte[] encoded = new byte[5];
+        int length = 0;
+        while ((value & ~0x7F) != 0) {
+            encoded[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        encoded[length++] = (byte) value;
+
+        byte[] appended = Arrays.copyOf(current, current.length + length);
+        System.arraycopy(encoded, 0, appended, current.length, length);
+        return appended;
+    }
+
+    /**
+     * Decodes every move of a history
+     *
+     * @param history encoded history, may be null for an empty history
+     * @return moves in the order they were played
+     * @throws GameStatusViolationException if the history is truncated
+     */
+    static List<Move> decode(final byte[] history) {
+        List<Move> moves = new ArrayList<>();
+        if (history == null) {
+            return moves;
+        }
+        int position = 0;
+        while (position < history.length) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (position == history.length) {
+                    throw new GameStatusViolationException("Truncated move history");
+                }
+                b = history[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            moves.add(new Move(value >>> FLAG_BITS, (value & CAPTURE_FLAG) != 0, (value & END_GAME_FLAG) != 0));
+        }
+        return moves;
+    }
+
+    /**
+     * Removes the last move of a history
+     *
+     * @param history encoded history with at least one move
+     * @return encoded history without its last move
+     */
+    static byte[] removeLast(final byte[] history) {
+        // the last byte of a varint is the only one without the continuation bit,
+        // so the previous move ends at the last such byte before the final one
+        int end = history.length - 1;
+        while (end > 0 && (history[end - 1] & 0x80) != 0) {
+            end--;
+        }
+        return Arrays.copyOf(history, end);
+    }
+}
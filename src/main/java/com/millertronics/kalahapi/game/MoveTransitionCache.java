@@ -0,0 +1,217 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.util.BoundedMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of move results keyed by a Zobrist hash of the board and the pit moved from.<br />
+ * Every game starts from the same board, so early positions and their moves repeat across games and a hit
+ * skips sowing the stones. A board's hash is the XOR of one random key per (pit, stones) pair, so the hash after
+ * a move is updated from the pits it changed instead of being recomputed, and replays carry it from move to move.
+ * Entries keep their board and are only used if it matches, so a hash collision costs a miss, never a wrong move.
+ * Boards with other than GameEntity.PIT_SIZE pits or more than MAX_STONES stones in a pit are not cached
+ * (see isCacheable) and have no hash. Once the cache is over its bound, transitions are evicted down to 3/4 of it.
+ */
+@Component
+public class MoveTransitionCache {
+
+    static final int MAX_STONES = 127;
+    private static final long[][] PIT_KEYS = createKeys(GameEntity.PIT_SIZE, MAX_STONES + 1, 0x6b616c6168L);
+    private static final long[] MOVE_KEYS = createKeys(1, GameEntity.PIT_SIZE, 0x6d6f7665L)[0];
+
+    private final BoundedMap<Long, Transition> transitions;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final GameStatusCalculator gameStatusCalculator;
+
+    /**
+     * @param gameStatusCalculator calculator applying the moves missing from the cache
+     * @param maxEntries number of transitions kept before some are evicted
+     */
+    public MoveTransitionCache(final GameStatusCalculator gameStatusCalculator,
+                               @Value("${kalah.transitions.max-entries:100000}") final int maxEntries) {
+        this.gameStatusCalculator = gameStatusCalculator;
+        this.transitions = new BoundedMap<>(maxEntries, maxEntries * 3 / 4,
+                transition -> false, transition -> true);
+    }
+
+    /**
+     * Applies a move to a game, checking first that the game is in progress and it is the player's turn
+     *
+     * @param game game the move is made in, left unchanged
+     * @param pitIndex zero-based array index of the pit to move from
+     * @return result of the move
+     * @throws IllegalGameMoveException if the game has finished, it is not the player's turn or pitIndex is invalid
+     */
+    public Transition apply(final GameEntity game, final int pitIndex) throws IllegalGameMoveException {
+        final int[] pits = gameStatusCalculator.validateMove(game, pitIndex);
+        return apply(pits, isCacheable(pits) ? hash(pits) : 0, pitIndex);
+    }
+
+    /**
+     * Applies a move to a board, regardless of whose turn it is
+     *
+     * @param pits integer array representing the pits before the move, left unchanged
+     * @param hash hash of pits, as returned by hash(int[]) or Transition.getHash(); ignored if pits are not cacheable
+     * @param pitIndex zero-based array index of the pit to move from
+     * @return result of the move
+     * @throws IllegalGameMoveException if pitIndex is invalid
+     */
+    public Transition apply(final int[] pits, final long hash, final int pitIndex) throws IllegalGameMoveException {
+        final boolean cacheable = isCacheable(pits);
+        final long key = hash ^ MOVE_KEYS[Math.floorMod(pitIndex, MOVE_KEYS.length)];
+        if (cacheable) {
+            final Transition cached = transitions.get(key);
+            if (cached != null && cached.pitIndex == pitIndex && Arrays.equals(cached.source, pits)) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+
+        final int[] newPits = gameStatusCalculator.redistributeStones(pits, pitIndex);
+        final boolean newCacheable = isCacheable(newPits);
+        final long newHash = !newCacheable ? 0 : cacheable ? rehash(hash, pits, newPits) : hash(newPits);
+        final Transition transition = new Transition(pits.clone(), pitIndex, newPits,
+                gameStatusCalculator.calculateNextTurn(pits[pitIndex], pitIndex, newPits),
+                gameStatusCalculator.isCapture(pits, pitIndex),
+                newCacheable, newHash);
+        if (cacheable) {
+            transitions.put(key, transition);
+        }
+        return transition;
+    }
+
+    /**
+     * Computes the Zobrist hash of a cacheable board
+     *
+     * @param pits integer array representing the pits
+     * @return hash of the board
+     * @throws IllegalArgumentException if the board is not cacheable
+     */
+    public static long hash(final int[] pits) {
+        if (!isCacheable(pits)) {
+            throw new IllegalArgumentException("Board cannot be hashed: " + Arrays.toString(pits));
+        }
+        long hash = 0;
+        for (int i = 0; i < pits.length; i++) {
+            hash ^= PIT_KEYS[i][pits[i]];
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the hits, misses and hit rate of the cache and the number of transitions held
+     *
+     * @return map of metric name to value
+     */
+    public Map<String, Object> getMetrics() {
+        final long hitCount = hits.sum();
+        final long lookups = hitCount + misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hitCount);
+        metrics.put("misses", lookups - hitCount);
+        metrics.put("hitRate", lookups == 0 ? 0.0 : hitCount / (double) lookups);
+        metrics.put("size", transitions.size());
+        return metrics;
+    }
+
+    /**
+     * Updates a hash for the pits a move changed
+     */
+    private static long rehash(final long hash, final int[] pits, final int[] newPits) {
+        long newHash = hash;
+        for (int i = 0; i < pits.length; i++) {
+            if (pits[i] != newPits[i]) {
+                newHash ^= PIT_KEYS[i][pits[i]] ^ PIT_KEYS[i][newPits[i]];
+            }
+        }
+        return newHash;
+    }
+
+    /**
+     * Tells whether moves from a board are cached, which needs GameEntity.PIT_SIZE pits of 0 to MAX_STONES stones
+     *
+     * @param pits integer array representing the pits
+     * @return true if the board has a hash and its moves are cached
+     */
+    public static boolean isCacheable(final int[] pits) {
+        if (pits.length != GameEntity.PIT_SIZE) {
+            return false;
+        }
+        for (int stones : pits) {
+            if (stones < 0 || stones > MAX_STONES) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[][] createKeys(final int rows, final int columns, final long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[][] keys = new long[rows][columns];
+        for (long[] row : keys) {
+            for (int i = 0; i < columns; i++) {
+                row[i] = random.nextLong();
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Result of a move. Shared between callers: the arrays must not be modified.
+     */
+    @Getter
+    public static final class Transition {
+        @Getter(AccessLevel.NONE)
+        private final int[] source;
+        @Getter(AccessLevel.NONE)
+        private final int pitIndex;
+
+        /**
+         * Integer array representing the pits after the move
+         */
+        private final int[] pits;
+
+        /**
+         * Player to move next, or GameEntity.NO_PLAYER if the move ended the game
+         */
+        private final int nextTurn;
+
+        /**
+         * Whether the move captured the stones of the opposite pit
+         */
+        private final boolean capture;
+
+        /**
+         * Whether the pits after the move are cacheable, in which case hash is their hash
+         */
+        private final boolean cacheable;
+
+        /**
+         * Hash of the pits after the move, to pass on with them to the next apply; meaningless unless cacheable
+         */
+        private final long hash;
+
+        Transition(final int[] source, final int pitIndex, final int[] pits,
+                   final int nextTurn, final boolean capture, final boolean cacheable, final long hash) {
+            this.source = source;
+            this.pitIndex = pitIndex;
+            this.pits = pits;
+            this.nextTurn = nextTurn;
+            this.capture = capture;
+            this.cacheable = cacheable;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Clients waiting for the next change to a game, typically for their opponent's move.<br />
+ * Each waiter is a DeferredResult registered against its game, so a waiting client holds no thread,
+ * and waiters are answered from the GameReadModel when it announces a later version of their game,
+ * so waiting costs no repository reads either. A waiter not answered within its wait gets 204 and may wait again.
+ */
+@Component
+public class MoveWaiters {
+
+    private final Map<Integer, List<Waiter>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder notified = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final GameReadModel gameReadModel;
+    private final long maxWaitSeconds;
+
+    /**
+     * @param gameReadModel read model the versions and responses are taken from
+     * @param maxWaitSeconds longest wait a client may ask for
+     */
+    public MoveWaiters(final GameReadModel gameReadModel,
+                       @Value("${kalah.next-move.max-wait-seconds:30}") final long maxWaitSeconds) {
+        this.gameReadModel = gameReadModel;
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+
+    /**
+     * Waits for a game to reach a version later than the one the client has seen.
+     * Answers at once if it already has.
+     *
+     * @param gameId entity ID of the game
+     * @param afterVersion latest version of the game known to the client
+     * @param waitSeconds seconds to wait for a later version, capped at the configured maximum
+     * @param responder builds the response from the view of the later version
+     * @return result set with the response once the game has a later version, or 204 once the wait is over
+     * @throws GameNotFoundException if gameId doesn't match an existing game
+     */
+    public DeferredResult<ResponseEntity<Object>> await(final int gameId, final long afterVersion, final long waitSeconds,
+                                                        final Function<GameReadModel.GameView, ResponseEntity<Object>> responder)
+            throws GameNotFoundException {
+        final long timeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1, Math.min(waitSeconds, maxWaitSeconds)));
+        final Waiter waiter = new Waiter(afterVersion, timeoutMillis, responder);
+        GameReadModel.GameView view = gameReadModel.getView(gameId);
+        if (view.getVersion() > afterVersion) {
+            waiter.answer(view);
+            return waiter.result;
+        }
+
+        waiter.result.onTimeout(timeouts::increment);
+        waiter.result.onCompletion(() -> remove(gameId, waiter));
+        waiters.compute(gameId, (id, list) -> {
+            List<Waiter> added = list == null ? new ArrayList<>(2) : list;
+            added.add(waiter);
+            return added;
+        });
+        waiting.incrementAndGet();
+
+        // a version projected between the first look and the waiter being added has not answered it, so look again
+        try {
+            view = gameReadModel.getView(gameId);
+        } catch (GameNotFoundException e) {
+            remove(gameId, waiter);
+            throw e;
+        }
+        if (view.getVersion() > afterVersion) {
+            remove(gameId, waiter);
+            notify(waiter, view);
+        }
+        return waiter.result;
+    }
+
+    /**
+     * Answers the waiters of a game which have not seen the version projected
+     *
+     * @param event event published after the view of the game was replaced
+     */
+    @EventListener
+    public void onGameProjected(final GameProjectedEvent event) {
+        final GameReadModel.GameView view = event.getView();
+        final List<Waiter> ready = new ArrayList<>();
+        waiters.computeIfPresent(view.getId(), (id, list) -> {
+            list.removeIf(waiter -> waiter.afterVersion < view.getVersion() && ready.add(waiter));
+            return list.isEmpty() ? null : list;
+        });
+        waiting.addAndGet(-ready.size());
+        ready.forEach(waiter -> notify(waiter, view));
+    }
+
+    /**
+     * Answers the waiters of games that are no longer live with GAME_NOT_FOUND
+     *
+     * @param event event published after the games were evicted
+     */
+    @EventListener
+    public void onGamesEvicted(final GamesEvictedEvent event) {
+        for (Integer gameId : event.getGameIds()) {
+            final List<Waiter> evicted = waiters.remove(gameId);
+            if (evicted != null) {
+                waiting.addAndGet(-evicted.size());
+                evicted.forEach(waiter -> waiter.result.setErrorResult(
+                        new GameNotFoundException("Game not found for ID: " + gameId)));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of clients waiting, and how many waits were answered with a later version or timed out
+     *
+     * @return map containing waiting, notified and timeouts counts
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("waiting", (long) waiting.get());
+        metrics.put("notified", notified.sum());
+        metrics.put("timeouts", timeouts.sum());
+        return metrics;
+    }
+
+    private void notify(final Waiter waiter, final GameReadModel.GameView view) {
+        if (waiter.answer(view)) {
+            notified.increment();
+        }
+    }
+
+    private void remove(final int gameId, final Waiter waiter) {
+        waiters.computeIfPresent(gameId, (id, list) -> {
+            if (list.remove(waiter)) {
+                waiting.decrementAndGet();
+            }
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static final class Waiter {
+        private final long afterVersion;
+        private final DeferredResult<ResponseEntity<Object>> result;
+        private final Function<GameReadModel.GameView, ResponseEntity<Object>> responder;
+
+        private Waiter(final long afterVersion, final long timeoutMillis,
+                       final Function<GameReadModel.GameView, ResponseEntity<Object>> responder) {
+            this.afterVersion = afterVersion;
+            this.responder = responder;
+            this.result = new DeferredResult<>(timeoutMillis, ResponseEntity.noContent().build());
+        }
+
+        private boolean answer(final GameReadModel.GameView view) {
+            return result.setResult(responder.apply(view));
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.millertronics.kalahapi.game;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot of the GameReadModel, written on shutdown and read on startup so that a restarted node serves
+ * its games from memory straight away instead of loading them from the database one read at a time.
+ * Every game in the table is written, projected as the read model would, whether or not it was read
+ * since the node started.<br />
+ *
+ * Header (HEADER_SIZE bytes):<br />
+ * |magic|format|views|max game ID|games in table (8)|sum of versions in table (8)|CRC32 of the records|<br />
+ * Record (RECORD_SIZE bytes followed by the encoded moves):<br />
+ * |game ID|version (8)|updatedAt millis (8)|turn|flags|last move pit|reserved|legal moves (2)|14 pits, one unsigned byte each|
+ * length of the moves (4), -1 before the first move|moves encoded by MoveHistory|<br />
+ *
+ * The file is memory-mapped on startup and used only if its checksum matches and the game table is in the
+ * state it was in when the snapshot was written (see GameTableState). Otherwise it is ignored and games are
+ * loaded from the database on first read, as without a snapshot.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class ReadModelSnapshot {
+
+    static final int HEADER_SIZE = 36;
+    static final int RECORD_SIZE = 44;
+
+    private static final int SNAPSHOT_MAGIC = 0x4B524D53; // "KRMS"
+    private static final int SNAPSHOT_FORMAT = 2;
+    private static final int CRC_OFFSET = 32;
+    private static final int FLAG_FINISHED = 1;
+    private static final int FLAG_LAST_MOVE_CAPTURE = 2;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final GameReadModel gameReadModel;
+    private final GameRepository gameRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Path snapshotPath;
+
+    /**
+     * @param gameReadModel read model snapshotted, which projects the games written and takes those restored
+     * @param gameRepository repository the games are streamed from and the snapshot is checked against
+     * @param entityManager entity manager the streamed games are detached from
+     * @param transactionManager transaction manager of the repository
+     * @param snapshotFile file the read model is written to on shutdown, blank to disable snapshots
+     */
+    public ReadModelSnapshot(final GameReadModel gameReadModel,
+                             final GameRepository gameRepository,
+                             final EntityManager entityManager,
+                             final PlatformTransactionManager transactionManager,
+                             @Value("${kalah.projection.snapshot-file:}") final String snapshotFile) {
+        this.gameReadModel = gameReadModel;
+        this.gameRepository = gameRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.snapshotPath = snapshotFile == null || snapshotFile.isBlank() ? null : Paths.get(snapshotFile);
+    }
+
+    /**
+     * Restores the read model from the snapshot file if one exists, before the node takes requests
+     */
+    @PostConstruct
+    public void restore() {
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            final long start = System.nanoTime();
+            final int restored = restore(snapshotPath);
+            log.info("Restored {} games from {} in {} ms", restored, snapshotPath,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Writes the read model to the snapshot file once the node has stopped taking requests.
+     * Runs from the shutdown hook closing the application, while the database is still open.
+     */
+    @PreDestroy
+    public void write() {
+        if (snapshotPath == null) {
+            return;
+        }
+        final long start = System.nanoTime();
+        final int written = write(snapshotPath);
+        log.info("Wrote {} games to {} in {} ms", written, snapshotPath,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes every game in the table to a file as its view, together with the state of the table.
+     * The games are streamed from a forward-only cursor and detached once written, so memory use does not grow
+     * with the number of games. The table state is read before and after the games are streamed; if a game was
+     * saved in between, the records may not match the table, so nothing is written and the node starts without
+     * a snapshot. The file is written next to the target and moved into place so a crash never leaves a partial
+     * snapshot.
+     *
+     * @param path snapshot file
+     * @return number of games written, 0 if games changed while they were streamed
+     */
+    int write(final Path path) {
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Integer written;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            written = transactionTemplate.execute(status -> writeGames(channel));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write read model snapshot to " + path, e);
+        }
+        try {
+            if (written == null) {
+                log.warn("Games changed while they were written, not writing snapshot {}", path);
+                Files.delete(temp);
+                return 0;
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write read model snapshot to " + path, e);
+        }
+        return written;
+    }
+
+    /**
+     * Writes the records of the games streamed from the table, then the header
+     *
+     * @param channel file written, empty
+     * @return number of games written, null if the table changed while they were streamed
+     */
+    private Integer writeGames(final FileChannel channel) {
+        final GameTableState state = gameRepository.findTableState();
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        final CRC32 crc = new CRC32();
+        int count = 0;
+        try (Stream<GameEntity> games = gameRepository.streamByIdRange(0, Integer.MAX_VALUE)) {
+            channel.position(HEADER_SIZE);
+            Iterator<GameEntity> iterator = games.iterator();
+            while (iterator.hasNext()) {
+                final GameEntity game = iterator.next();
+                final GameReadModel.GameView view = gameReadModel.project(game);
+                entityManager.detach(game);
+                final int historyLength = view.getHistory() == null ? 0 : view.getHistory().length;
+                if (buffer.remaining() < RECORD_SIZE + historyLength) {
+                    flush(channel, buffer, crc);
+                }
+                writeRecord(buffer, view);
+                count++;
+            }
+            flush(channel, buffer, crc);
+            if (count != state.getGames() || !state.equals(gameRepository.findTableState())) {
+                return null;
+            }
+
+            buffer.putInt(SNAPSHOT_MAGIC)
+                    .putInt(SNAPSHOT_FORMAT)
+                    .putInt(count)
+                    .putInt(state.getMaxId())
+                    .putLong(state.getGames())
+                    .putLong(state.getVersionSum())
+                    .putInt((int) crc.getValue())
+                    .flip();
+            channel.write(buffer, 0);
+            channel.force(true);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write read model snapshot", e);
+        }
+    }
+
+    /**
+     * Writes out the records buffered, adding them to the checksum
+     */
+    private static void flush(final FileChannel channel, final ByteBuffer buffer, final CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Memory-maps a snapshot file and loads its views into the read model, if it is intact and still current
+     *
+     * @param path snapshot file
+     * @return number of views restored, 0 if the snapshot was ignored
+     */
+    int restore(final Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return ignore(path, "too short for a header");
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(4) != SNAPSHOT_FORMAT) {
+                return ignore(path, "not a read model snapshot of this format");
+            }
+            final int count = buffer.getInt(8);
+            if (count < 0 || size < HEADER_SIZE + (long) count * RECORD_SIZE) {
+                return ignore(path, "truncated");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(HEADER_SIZE));
+            if ((int) crc.getValue() != buffer.getInt(CRC_OFFSET)) {
+                return ignore(path, "checksum mismatch");
+            }
+            final GameTableState written = new GameTableState(buffer.getLong(16), buffer.getLong(24), buffer.getInt(12));
+            if (!written.equals(gameRepository.findTableState())) {
+                return ignore(path, "games changed since it was written");
+            }
+
+            buffer.position(HEADER_SIZE);
+            final List<GameReadModel.GameView> views = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final GameReadModel.GameView view = readRecord(buffer);
+                if (view == null) {
+                    return ignore(path, "truncated");
+                }
+                views.add(view);
+            }
+            if (buffer.hasRemaining()) {
+                return ignore(path, "longer than its records");
+            }
+            views.forEach(gameReadModel::restore);
+            return count;
+        } catch (IOException e) {
+            log.warn("Failed to read read model snapshot {}, loading games from the database", path, e);
+            return 0;
+        }
+    }
+
+    private static int ignore(final Path path, final String reason) {
+        log.warn("Ignoring read model snapshot {}: {}, loading games from the database", path, reason);
+        return 0;
+    }
+
+    private static void writeRecord(final ByteBuffer buffer, final GameReadModel.GameView view) {
+        final int flags = (view.isFinished() ? FLAG_FINISHED : 0) | (view.isLastMoveCapture() ? FLAG_LAST_MOVE_CAPTURE : 0);
+        buffer.putInt(view.getId())
+                .putLong(view.getVersion())
+                .putLong(view.getUpdatedAt() == null ? -1 : view.getUpdatedAt().toEpochMilli())
+                .put((byte) view.getTurn())
+                .put((byte) flags)
+                .put((byte) (view.getLastMovePit() == null ? 0 : view.getLastMovePit()))
+                .put((byte) 0)
+                .putShort((short) view.getLegalMoves());
+        final int[] pits = view.getPits();
+        if (pits.length != GameEntity.PIT_SIZE) {
+            throw new IllegalStateException(String.format("Cannot snapshot %d pits in a record of %d", pits.length, GameEntity.PIT_SIZE));
+        }
+        for (int stones : pits) {
+            buffer.put((byte) stones);
+        }
+        final byte[] history = view.getHistory();
+        if (history == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(history.length).put(history);
+        }
+    }
+
+    /**
+     * @return view read from the record at the buffer position, null if the record runs past the end of the buffer
+     */
+    private static GameReadModel.GameView readRecord(final ByteBuffer buffer) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            return null;
+        }
+        final int id = buffer.getInt();
+        final long version = buffer.getLong();
+        final long updatedAt = buffer.getLong();
+        final int turn = buffer.get();
+        final int flags = buffer.get();
+        final int lastMovePit = buffer.get();
+        buffer.get();
+        final int legalMoves = Short.toUnsignedInt(buffer.getShort());
+        final int[] pits = new int[GameEntity.PIT_SIZE];
+        for (int i = 0; i < pits.length; i++) {
+            pits[i] = Byte.toUnsignedInt(buffer.get());
+        }
+        final int historyLength = buffer.getInt();
+        if (historyLength > buffer.remaining()) {
+            return null;
+        }
+        final byte[] history = historyLength < 0 ? null : new byte[historyLength];
+        if (history != null) {
+            buffer.get(history);
+        }
+        return new GameReadModel.GameView(id, version, pits, turn, (flags & FLAG_FINISHED) != 0, legalMoves,
+                pits[pits.length / 2 - 1], pits[pits.length - 1],
+                lastMovePit == 0 ? null : lastMovePit,
+                (flags & FLAG_LAST_MOVE_CAPTURE) != 0,
+                updatedAt < 0 ? null : Instant.ofEpochMilli(updatedAt),
+                history);
+    }
+}
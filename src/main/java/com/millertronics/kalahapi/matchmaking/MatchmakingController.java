@@ -0,0 +1,55 @@
+package com.millertronics.kalahapi.matchmaking;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rest controller for players looking for an opponent
+ */
+@RestController
+@RequestMapping("/matchmaking")
+public class MatchmakingController {
+
+    private final MatchmakingService matchmakingService;
+    private final long maxWaitSeconds;
+
+    /**
+     * @param matchmakingService queue of waiting players
+     * @param maxWaitSeconds longest wait a player may ask for
+     */
+    public MatchmakingController(final MatchmakingService matchmakingService,
+                                 @Value("${kalah.matchmaking.max-wait-seconds:30}") final long maxWaitSeconds) {
+        this.matchmakingService = matchmakingService;
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+
+    /**
+     * Handles POST request of a player looking for an opponent.
+     * The request is held open until another player is found, then both are answered with the same new game:
+     * status 201 with the game's id and url, and player 1 or 2 telling which side of the board is theirs.
+     * Returns status 204 if no opponent was found within the wait, after which the player may try again.
+     *
+     * @param wait seconds to wait for an opponent, capped at the configured maximum
+     * @return deferred Json response containing id, url and player
+     */
+    @Operation(summary = "Wait for an opponent and join a new game with them")
+    @ApiResponse(responseCode = "201")
+    @ApiResponse(responseCode = "204")
+    @PostMapping(path = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<ResponseEntity<Object>> join(@RequestParam(defaultValue = "25") final long wait) {
+        final String gamesUrl = ServletUriComponentsBuilder.fromCurrentContextPath().path("/games").toUriString();
+        final long waitSeconds = Math.max(1, Math.min(wait, maxWaitSeconds));
+        return matchmakingService.join(gamesUrl, TimeUnit.SECONDS.toMillis(waitSeconds));
+    }
+}
@@ -0,0 +1,305 @@
+package com.millertronics.kalahapi.matchmaking;
+
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameService;
+import com.millertronics.kalahapi.util.SingleThreadExecutors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pairs waiting players into new games.<br />
+ * Players join a lock-free queue and are answered through a DeferredResult, so no thread waits for an opponent.
+ * Whichever thread finds the queue idle drains it, pairing tickets in arrival order; threads arriving meanwhile
+ * only leave a drain request behind, which the draining thread picks up before it stops.
+ * The games of paired players are created on a matchmaker thread, so draining never waits for the database;
+ * when PENDING_GAMES pairs are already waiting for their game the draining thread creates the game itself.
+ * A player who is not paired within the wait is answered with 204 and may join again.<br />
+ *
+ * Both players of a pairing are answered together by the matchmaker once their game exists. A player whose wait
+ * ends before that is answered with 204 at once and cancels the pairing, and their opponent goes back to the queue,
+ * so a game is never handed to one player only; a game created for a cancelled pairing is left unused,
+ * to be archived by the janitor as abandoned.
+ */
+@Slf4j
+@Service
+public class MatchmakingService {
+
+    private static final int PENDING_GAMES = 1024;
+
+    /**
+     * Claim of a ticket whose wait has ended
+     */
+    private static final Pairing EXPIRED = new Pairing(null, null);
+
+    private final Queue<Ticket> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    private final LongAdder pairings = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final GameService gameService;
+    private final ShardRouter shardRouter;
+    private final Executor executor;
+
+    /**
+     * Ticket waiting for an opponent, only accessed by the draining thread
+     */
+    private Ticket unpaired;
+
+    /**
+     * @param gameService creator of the games of paired players
+     * @param shardRouter encoder of the public IDs of the games
+     */
+    @Autowired
+    public MatchmakingService(final GameService gameService, final ShardRouter shardRouter) {
+        this(gameService, shardRouter, SingleThreadExecutors.create("matchmaker", PENDING_GAMES));
+    }
+
+    /**
+     * Matchmaking creating the games of paired players on the given executor
+     */
+    MatchmakingService(final GameService gameService, final ShardRouter shardRouter, final Executor executor) {
+        this.gameService = gameService;
+        this.shardRouter = shardRouter;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a player for a game
+     *
+     * @param gamesUrl URL of the games resource, used to build the URL of the game in the response
+     * @param timeoutMillis how long to wait for an opponent
+     * @return result set with id, url and player once paired, or 204 once the wait is over
+     */
+    public DeferredResult<ResponseEntity<Object>> join(final String gamesUrl, final long timeoutMillis) {
+        final Ticket ticket = new Ticket(gamesUrl, timeoutMillis);
+        ticket.result.onTimeout(() -> expire(ticket));
+        waiting.offer(ticket);
+        drain();
+        return ticket.result;
+    }
+
+    /**
+     * Gets the number of games created by pairing players and the number of players who were not paired in time
+     *
+     * @return map containing pairings and timeouts counts
+     */
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("pairings", pairings.sum());
+        metrics.put("timeouts", timeouts.sum());
+        return metrics;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Ends the wait of a ticket, on the container thread timing it out, without waiting for its game.
+     * A ticket waiting or in a pairing not answered yet expires and is answered with 204, cancelling the pairing;
+     * a ticket whose pairing was answered gets its game. A cancelled pairing may hand the ticket back to the queue
+     * concurrently, so the claim is checked again until the ticket has expired.
+     */
+    private void expire(final Ticket ticket) {
+        while (true) {
+            final Pairing pairing = ticket.claim.get();
+            if (pairing == EXPIRED) {
+                return;
+            }
+            if (pairing != null && !pairing.cancel()) {
+                pairing.respond(ticket);
+                return;
+            }
+            if (ticket.claim.compareAndSet(pairing, EXPIRED)) {
+                timeouts.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pairs queued tickets unless another thread is already doing so, in which case that thread is asked to go again
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            Ticket next;
+            while ((next = waiting.poll()) != null) {
+                if (!next.isWaiting()) {
+                    continue;
+                }
+                if (unpaired == null || !unpaired.isWaiting()) {
+                    unpaired = next;
+                    continue;
+                }
+                final Ticket first = unpaired;
+                unpaired = null;
+                match(first, next);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Claims both tickets for a pairing and hands it over to have its game created; a ticket that expired
+     * in the meantime is dropped and the other one keeps waiting
+     */
+    private void match(final Ticket first, final Ticket second) {
+        final Pairing pairing = new Pairing(first, second);
+        if (!first.claim(pairing)) {
+            unpaired = second;
+            return;
+        }
+        if (!second.claim(pairing)) {
+            first.release(pairing);
+            unpaired = first;
+            return;
+        }
+        executor.execute(() -> createGame(pairing));
+    }
+
+    /**
+     * Creates the game of a pairing and answers both tickets, unless the wait of either ended first,
+     * in which case the other ticket is queued again
+     */
+    private void createGame(final Pairing pairing) {
+        if (pairing.isCancelled()) {
+            requeue(pairing);
+            return;
+        }
+        try {
+            final int gameId = shardRouter.toPublicId(gameService.createGame().getId());
+            pairing.firstResponse = createResponse(pairing.first, gameId, GameEntity.PLAYER_ONE);
+            pairing.secondResponse = createResponse(pairing.second, gameId, GameEntity.PLAYER_TWO);
+        } catch (RuntimeException e) {
+            log.error("Could not create a game for matched players", e);
+            pairing.error = e;
+        }
+        if (!pairing.answer()) {
+            requeue(pairing);
+            return;
+        }
+        if (pairing.error == null) {
+            pairings.increment();
+        }
+        pairing.respond(pairing.first);
+        pairing.respond(pairing.second);
+    }
+
+    /**
+     * Queues the tickets of a cancelled pairing again, apart from those whose wait has ended
+     */
+    private void requeue(final Pairing pairing) {
+        for (Ticket ticket : List.of(pairing.first, pairing.second)) {
+            if (ticket.release(pairing)) {
+                waiting.offer(ticket);
+            }
+        }
+        drain();
+    }
+
+    private static ResponseEntity<Object> createResponse(final Ticket ticket, final int gameId, final int player) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", String.valueOf(gameId));
+        body.put("url", ticket.gamesUrl + "/" + gameId);
+        body.put("player", player);
+        return new ResponseEntity<>(body, HttpStatus.CREATED);
+    }
+
+    private static final class Ticket {
+        /**
+         * Pairing the ticket belongs to, null while waiting for an opponent and EXPIRED once the wait has ended
+         */
+        private final AtomicReference<Pairing> claim = new AtomicReference<>();
+        private final DeferredResult<ResponseEntity<Object>> result;
+        private final String gamesUrl;
+
+        private Ticket(final String gamesUrl, final long timeoutMillis) {
+            this.gamesUrl = gamesUrl;
+            this.result = new DeferredResult<>(timeoutMillis, ResponseEntity.noContent().build());
+        }
+
+        private boolean isWaiting() {
+            return claim.get() == null && !result.isSetOrExpired();
+        }
+
+        private boolean claim(final Pairing pairing) {
+            return claim.compareAndSet(null, pairing) && !result.isSetOrExpired();
+        }
+
+        private boolean release(final Pairing pairing) {
+            return claim.compareAndSet(pairing, null);
+        }
+    }
+
+    /**
+     * Two tickets paired for a game. The pairing is either answered by the matchmaker, after the responses
+     * are set, or cancelled by the end of the wait of either ticket, whichever comes first.
+     */
+    private static final class Pairing {
+        private static final int OPEN = 0;
+        private static final int ANSWERED = 1;
+        private static final int CANCELLED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(OPEN);
+        private final Ticket first;
+        private final Ticket second;
+
+        /**
+         * Set by the matchmaker before the pairing is answered, and read only once it has been
+         */
+        private ResponseEntity<Object> firstResponse;
+        private ResponseEntity<Object> secondResponse;
+        private RuntimeException error;
+
+        private Pairing(final Ticket first, final Ticket second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        private boolean answer() {
+            return state.compareAndSet(OPEN, ANSWERED);
+        }
+
+        /**
+         * @return true if the pairing is cancelled, false if it was answered
+         */
+        private boolean cancel() {
+            return state.compareAndSet(OPEN, CANCELLED) || state.get() == CANCELLED;
+        }
+
+        private boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private void respond(final Ticket ticket) {
+            if (error != null) {
+                ticket.result.setErrorResult(error);
+            } else {
+                ticket.result.setResult(ticket == first ? firstResponse : secondResponse);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Identifies the client sending a request: by the configured client header if set and present,
+ * otherwise by remote address. Moves are rate limited and deduplicated per client.
+ */
+@Component
+public class ClientIdentifier {
+
+    private final String clientHeader;
+
+    /**
+     * @param clientHeader request header identifying the client, blank to use the remote address
+     */
+    public ClientIdentifier(@Value("${kalah.rate-limit.client-header:}") final String clientHeader) {
+        this.clientHeader = clientHeader;
+    }
+
+    /**
+     * Gets the identity of the client sending a request
+     *
+     * @param request incoming HttpServletRequest
+     * @return value of the client header, or the remote address if the header is not configured or not sent
+     */
+    public String identify(final HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            final String client = request.getHeader(clientHeader);
+            if (client != null && !client.isBlank()) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,80 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.exceptions.handlers.CustomExceptionHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Rejects moves with 429 once a client exceeds its rate of moves on a game.
+ * Clients are identified by the ClientIdentifier.
+ * Buckets are keyed by the database ID the game ID decodes to, so every alias of a game ID shares one bucket.
+ * Paths whose ID is beyond the int range name no game and are passed on to be rejected.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kalah.rate-limit", name = "enabled", matchIfMissing = true)
+public class MoveRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Pattern MOVE_PATH = Pattern.compile("^/games/(\\d{1,10})/pits/[^/]+$");
+
+    private final MoveRateLimiter moveRateLimiter;
+    private final ShardRouter shardRouter;
+    private final ClientIdentifier clientIdentifier;
+
+    /**
+     * @param moveRateLimiter buckets of the clients
+     * @param shardRouter decoder of the public game IDs
+     * @param clientIdentifier identifier of the client sending a move
+     */
+    public MoveRateLimitFilter(final MoveRateLimiter moveRateLimiter,
+                               final ShardRouter shardRouter,
+                               final ClientIdentifier clientIdentifier) {
+        this.moveRateLimiter = moveRateLimiter;
+        this.shardRouter = shardRouter;
+        this.clientIdentifier = clientIdentifier;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) {
+        return !HttpMethod.PUT.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final Matcher matcher = MOVE_PATH.matcher(path);
+        if (matcher.matches()) {
+            final int gameId;
+            try {
+                gameId = shardRouter.floorLocalId(Integer.parseInt(matcher.group(1)));
+            } catch (NumberFormatException e) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            final long waitNanos = moveRateLimiter.tryAcquire(clientIdentifier.identify(request) + '/' + gameId);
+            if (waitNanos > 0) {
+                final long retryAfterSeconds = (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                CustomExceptionHandler.writeProblem(response, HttpStatus.TOO_MANY_REQUESTS, "Too many moves.",
+                        GameErrorCode.RATE_LIMITED, "Move rate limit exceeded for game " + matcher.group(1));
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,84 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import com.millertronics.kalahapi.util.BoundedMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets limiting the rate of moves per key, kept in a bounded map.<br />
+ * Each bucket is a single AtomicLong holding its theoretical arrival time (the generic cell rate algorithm):
+ * a request is allowed if, after adding one emission interval, the arrival time is no further ahead of now than
+ * the burst allows. Taking a token is one compare-and-set, so buckets need no lock and the map's own striping
+ * keeps keys from contending with each other. Over the bound, full buckets are evicted first, which loses nothing
+ * as a new bucket starts full, then the earliest iterated ones.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kalah.rate-limit", name = "enabled", matchIfMissing = true)
+public class MoveRateLimiter {
+
+    private final BoundedMap<String, AtomicLong> buckets;
+    private final LongSupplier nanoTime;
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    /**
+     * @param movesPerSecond sustained number of moves allowed per key
+     * @param burst number of moves a key may make at once after being idle
+     * @param maxKeys number of keys tracked before idle ones are evicted
+     */
+    @Autowired
+    public MoveRateLimiter(@Value("${kalah.rate-limit.moves-per-second:20}") final double movesPerSecond,
+                           @Value("${kalah.rate-limit.burst:40}") final int burst,
+                           @Value("${kalah.rate-limit.max-keys:100000}") final int maxKeys) {
+        this(System::nanoTime, movesPerSecond, burst, maxKeys);
+    }
+
+    MoveRateLimiter(final LongSupplier nanoTime, final double movesPerSecond, final int burst, final int maxKeys) {
+        if (movesPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and a burst of at least 1");
+        }
+        this.nanoTime = nanoTime;
+        this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / movesPerSecond);
+        this.burstNanos = emissionIntervalNanos * burst;
+        this.buckets = new BoundedMap<>(maxKeys, maxKeys,
+                bucket -> bucket.get() - nanoTime.getAsLong() <= 0, bucket -> true);
+    }
+
+    /**
+     * Takes a token from the bucket of a key if one is available
+     *
+     * @param key identity the limit applies to
+     * @return 0 if the request is allowed, otherwise nanoseconds until a token will be available
+     */
+    public long tryAcquire(final String key) {
+        final long now = nanoTime.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            final long arrival = bucket.get();
+            final long next = Math.max(arrival, now) + emissionIntervalNanos;
+            final long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return number of keys currently tracked
+     */
+    public int size() {
+        return buckets.size();
+    }
+}
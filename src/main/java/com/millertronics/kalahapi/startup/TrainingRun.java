@@ -0,0 +1,57 @@
+package com.millertronics.kalahapi.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Plays one move through the HTTP API as soon as the application is ready, then shuts it down.<br />
+ * Used by the cds build profile to record the classes a started instance loads into a class-data-sharing archive,
+ * so the run covers the request path and persistence as well as the context itself.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "kalah.startup", name = "training-run")
+public class TrainingRun {
+
+    /**
+     * Creates a game, moves from its first pit and exits with status 0 if both succeeded
+     *
+     * @param event event published once the application is ready to serve requests
+     */
+    @EventListener
+    public void onApplicationReady(final ApplicationReadyEvent event) {
+        int status = 1;
+        try {
+            final int port = ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort();
+            final String baseUrl = "http://localhost:" + port + "/games";
+            HttpClient httpClient = HttpClient.newHttpClient();
+
+            HttpResponse<String> created = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+            final String gameId = new ObjectMapper().readTree(created.body()).get("id").asText();
+            HttpResponse<String> moved = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + gameId + "/pits/1"))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+            status = moved.statusCode() == 200 ? 0 : 1;
+            log.info("Training run moved with status {}", moved.statusCode());
+        } catch (IOException e) {
+            log.error("Training run failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final int exitCode = status;
+        System.exit(SpringApplication.exit(event.getApplicationContext(), () -> exitCode));
+    }
+}
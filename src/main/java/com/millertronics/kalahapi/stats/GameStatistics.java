@@ -0,0 +1,127 @@
+package com.millertronics.kalahapi.stats;
+
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameMovedEvent;
+import com.millertronics.kalahapi.game.GameUndoneEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregate statistics over all games, maintained incrementally as moves are made and taken back.
+ * Counters are striped LongAdders, so concurrent moves never contend on a lock
+ * and reading the statistics costs the same however many games are stored.
+ */
+@Component
+public class GameStatistics {
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder captures = new LongAdder();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder movesInFinishedGames = new LongAdder();
+    private final LongAdder firstPlayerWins = new LongAdder();
+    private final LongAdder secondPlayerWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder[] gamesByOpeningPit = createAdders(GameEntity.PIT_SIZE);
+    private final LongAdder[] winsByOpeningPit = createAdders(GameEntity.PIT_SIZE);
+
+    /**
+     * Counts a move, and the result of the game if the move finished it
+     *
+     * @param event event published after the move was saved
+     */
+    @EventListener
+    public void onGameMoved(final GameMovedEvent event) {
+        moves.increment();
+        if (event.isCapture()) {
+            captures.increment();
+        }
+
+        final GameEntity game = event.getGame();
+        if (!game.isFinished() || game.getOpeningPit() == null) {
+            return;
+        }
+        final List<Integer> pits = game.getPits();
+        final int kalahOneStones = pits.get(pits.size() / 2 - 1);
+        final int kalahTwoStones = pits.get(pits.size() - 1);
+        final int openingPit = game.getOpeningPit();
+        final int firstPlayer = openingPit < pits.size() / 2 ? GameEntity.PLAYER_ONE : GameEntity.PLAYER_TWO;
+        final int firstPlayerStones = firstPlayer == GameEntity.PLAYER_ONE ? kalahOneStones : kalahTwoStones;
+        final int secondPlayerStones = firstPlayer == GameEntity.PLAYER_ONE ? kalahTwoStones : kalahOneStones;
+
+        gamesFinished.increment();
+        movesInFinishedGames.add(game.getMoveCount());
+        gamesByOpeningPit[openingPit].increment();
+        if (firstPlayerStones > secondPlayerStones) {
+            firstPlayerWins.increment();
+            winsByOpeningPit[openingPit].increment();
+        } else if (secondPlayerStones > firstPlayerStones) {
+            secondPlayerWins.increment();
+        } else {
+            draws.increment();
+        }
+    }
+
+    /**
+     * Takes back the count of an undone move, so that a move replayed after an undo is counted once.
+     * Finished games cannot be undone, so the results of games are never taken back.
+     *
+     * @param event event published after the undo was saved
+     */
+    @EventListener
+    public void onGameUndone(final GameUndoneEvent event) {
+        moves.decrement();
+        if (event.isCapture()) {
+            captures.decrement();
+        }
+    }
+
+    /**
+     * Gets a point-in-time view of the statistics.
+     * Counters are read one at a time, so under load the figures may be a few moves apart.
+     *
+     * @return map of statistic name to value, with per-pit statistics keyed by one-based pit position
+     */
+    public Map<String, Object> getSummary() {
+        final long finished = gamesFinished.sum();
+        final long moveCount = moves.sum();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("moves", moveCount);
+        summary.put("gamesFinished", finished);
+        summary.put("firstPlayerWinRate", ratio(firstPlayerWins.sum(), finished));
+        summary.put("secondPlayerWinRate", ratio(secondPlayerWins.sum(), finished));
+        summary.put("drawRate", ratio(draws.sum(), finished));
+        summary.put("averageGameLength", ratio(movesInFinishedGames.sum(), finished));
+        summary.put("captureFrequency", ratio(captures.sum(), moveCount));
+
+        Map<String, Object> openingPits = new LinkedHashMap<>();
+        for (int i = 0; i < gamesByOpeningPit.length; i++) {
+            final long games = gamesByOpeningPit[i].sum();
+            if (games > 0) {
+                Map<String, Object> pit = new LinkedHashMap<>();
+                pit.put("games", games);
+                pit.put("winRate", ratio(winsByOpeningPit[i].sum(), games));
+                openingPits.put(String.valueOf(i + 1), pit);
+            }
+        }
+        summary.put("openingPits", openingPits);
+        return summary;
+    }
+
+    private static double ratio(final long count, final long total) {
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+    private static LongAdder[] createAdders(final int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
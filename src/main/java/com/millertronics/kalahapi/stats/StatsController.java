@@ -0,0 +1,57 @@
+package com.millertronics.kalahapi.stats;
+
+import com.millertronics.kalahapi.game.GameReadCoalescer;
+import com.millertronics.kalahapi.game.GameReadModel;
+import com.millertronics.kalahapi.game.MoveTransitionCache;
+import com.millertronics.kalahapi.game.MoveWaiters;
+import com.millertronics.kalahapi.matchmaking.MatchmakingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Rest controller for aggregate game statistics
+ */
+@RestController
+@AllArgsConstructor
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final GameStatistics gameStatistics;
+    private final GameReadCoalescer gameReadCoalescer;
+    private final MatchmakingService matchmakingService;
+    private final MoveTransitionCache moveTransitionCache;
+    private final GameReadModel gameReadModel;
+    private final MoveWaiters moveWaiters;
+
+    /**
+     * Handles GET request for the statistics over all games.
+     * Reads shows how many game reads went to the repository and how many shared a load already in flight,
+     * matchmaking how many pairs of players were given a game and how many players were not paired in time,
+     * transitions how often a move was found in the MoveTransitionCache,
+     * projection how far the GameReadModel served to game reads is behind the moves saved,
+     * nextMove how many clients are waiting for a change to a game and how their waits ended.
+     *
+     * @return Json response containing the statistics
+     */
+    @Operation(summary = "Get aggregate game statistics")
+    @ApiResponse(responseCode = "200")
+    @GetMapping(path = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> getStatistics() {
+        Map<String, Object> summary = gameStatistics.getSummary();
+        summary.put("reads", gameReadCoalescer.getMetrics());
+        summary.put("matchmaking", matchmakingService.getMetrics());
+        summary.put("transitions", moveTransitionCache.getMetrics());
+        summary.put("projection", gameReadModel.getMetrics());
+        summary.put("nextMove", moveWaiters.getMetrics());
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+}
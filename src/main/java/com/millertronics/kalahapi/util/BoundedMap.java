@@ -0,0 +1,94 @@
+package com.millertronics.kalahapi.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent map kept near a bound by the threads adding to it.<br />
+ * Once an addition takes the map over maxEntries, the adding thread first drops the stale entries, which can go
+ * without loss, then the earliest iterated evictable entries until the map is down to retainedEntries.
+ * Only one thread sweeps at a time; others carry on without waiting, so the map may briefly exceed its bound.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public final class BoundedMap<K, V> {
+
+    private final Map<K, V> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int maxEntries;
+    private final int retainedEntries;
+    private final Predicate<? super V> stale;
+    private final Predicate<? super V> evictable;
+
+    /**
+     * @param maxEntries number of entries held before some are evicted
+     * @param retainedEntries number of entries an eviction brings the map down to, at most maxEntries
+     * @param stale entries dropped first on eviction
+     * @param evictable entries that may be dropped if the map is still over retainedEntries
+     */
+    public BoundedMap(final int maxEntries, final int retainedEntries,
+                      final Predicate<? super V> stale, final Predicate<? super V> evictable) {
+        this.maxEntries = maxEntries;
+        this.retainedEntries = Math.min(retainedEntries, maxEntries);
+        this.stale = stale;
+        this.evictable = evictable;
+    }
+
+    public V get(final K key) {
+        return entries.get(key);
+    }
+
+    public V put(final K key, final V value) {
+        final V previous = entries.put(key, value);
+        evictIfNeeded();
+        return previous;
+    }
+
+    public V putIfAbsent(final K key, final V value) {
+        final V existing = entries.putIfAbsent(key, value);
+        if (existing == null) {
+            evictIfNeeded();
+        }
+        return existing;
+    }
+
+    public V computeIfAbsent(final K key, final Function<? super K, ? extends V> mappingFunction) {
+        final V value = entries.computeIfAbsent(key, mappingFunction);
+        evictIfNeeded();
+        return value;
+    }
+
+    public boolean replace(final K key, final V oldValue, final V newValue) {
+        return entries.replace(key, oldValue, newValue);
+    }
+
+    public boolean remove(final K key, final V value) {
+        return entries.remove(key, value);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(stale);
+            Iterator<V> iterator = entries.values().iterator();
+            while (entries.size() > retainedEntries && iterator.hasNext()) {
+                if (evictable.test(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.millertronics.kalahapi.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Factory of the single-thread executors work is handed off to from request threads.<br />
+ * Tasks wait in a bounded queue for one daemon thread. When the queue is full the submitting thread runs the task
+ * itself, which slows submitters down to the pace of the executor rather than dropping tasks or queueing without bound.
+ */
+public final class SingleThreadExecutors {
+
+    private SingleThreadExecutors() {
+    }
+
+    /**
+     * @param threadName name of the executor thread
+     * @param queueCapacity number of tasks waiting before submitters run their tasks themselves
+     * @return executor, to be shut down by its owner
+     */
+    public static ThreadPoolExecutor create(final String threadName, final int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -1,7 +0,0 @@
-DROP TABLE IF EXISTS games;
-
-CREATE TABLE games(
-    id INT PRIMARY KEY,
-    status VARCHAR,
-    turn INT
-);
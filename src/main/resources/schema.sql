@@ -0,0 +1,18 @@
+-- Schema of GameEntity, created if missing so that file-backed databases keep their games across restarts
+CREATE TABLE IF NOT EXISTS game_entity(
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    status VARCHAR(255),
+    turn INT NOT NULL,
+    finished BOOLEAN NOT NULL,
+    opening_pit INT,
+    move_count INT NOT NULL,
+    history VARBINARY(4096),
+    updated_at TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+-- Added for read models; files created before it get the column on start
+ALTER TABLE game_entity ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- GameJanitor looks for games untouched since a cut-off
+CREATE INDEX IF NOT EXISTS game_entity_updated_at ON game_entity(updated_at);
@@ -0,0 +1,111 @@
+package com.millertronics.kalahapi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Kills an application process running with the durable profile and checks that a new process
+ * on the same database file still has the games and moves acknowledged before the kill.
+ * Run with: mvn test -Pintegration
+ */
+@Tag("integration")
+class DurableStorageRecoveryTest {
+
+    @TempDir
+    Path dataDir;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("games and moves should survive the process being killed")
+    public void recoverAfterKill() throws Exception {
+        final String gameId;
+        String baseUrl = "http://localhost:" + findFreePort();
+        Process crashed = startNode(baseUrl);
+        try {
+            awaitReady(crashed, baseUrl);
+            gameId = objectMapper.readTree(send(baseUrl + "/games", "POST").body()).get("id").asText();
+            assertThat(send(baseUrl + "/games/" + gameId + "/pits/1", "PUT").statusCode(), equalTo(200));
+        } finally {
+            crashed.destroyForcibly();
+            crashed.waitFor(30, TimeUnit.SECONDS);
+        }
+
+        baseUrl = "http://localhost:" + findFreePort();
+        Process restarted = startNode(baseUrl);
+        try {
+            awaitReady(restarted, baseUrl);
+            HttpResponse<String> response = send(baseUrl + "/games/" + gameId, "GET");
+            assertThat(response.statusCode(), equalTo(200));
+            JsonNode game = objectMapper.readTree(response.body());
+            assertThat(game.get("status").get("1").asText(), equalTo("0"));
+            assertThat(game.get("status").get("7").asText(), equalTo("1"));
+            assertThat(game.get("turn").asInt(), equalTo(1));
+        } finally {
+            restarted.destroy();
+            restarted.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private Process startNode(final String baseUrl) throws IOException {
+        final String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+                KalahApiApplication.class.getName(),
+                "--server.port=" + URI.create(baseUrl).getPort(),
+                "--spring.profiles.active=durable",
+                "--kalah.durable.path=" + dataDir.resolve("kalah"),
+                "--kalah.janitor.enabled=false")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private void awaitReady(final Process process, final String baseUrl) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline && process.isAlive()) {
+            try {
+                if (send(baseUrl + "/stats", "GET").statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Application did not start");
+    }
+
+    private HttpResponse<String> send(final String url, final String method) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -14,6 +14,9 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.matchesPattern;
@@ -78,6 +81,109 @@ class KalahApiApplicationTests {
 				"\"14\":\"0\"" +
 				"}";
 		assertThat(responseBody.get("status").toString(), equalTo(expectedStatus));
+
+		// the last stone landed in player one's kalah pit so they play again, from pits 2 to 6
+		assertThat(responseBody.get("turn").asInt(), equalTo(1));
+		assertThat(responseBody.get("finished").asBoolean(), equalTo(false));
+		assertThat(responseBody.get("legalMoves").asInt(), equalTo(0b111110));
+	}
+
+	@Test
+	@DisplayName("Should export the games within an ID range as newline-delimited JSON")
+	public void testExport() throws JsonProcessingException {
+		final int firstId = Integer.parseInt(new ObjectMapper()
+				.readTree(postCreateGameRequest().getBody()).get("id").asText());
+		final int secondId = Integer.parseInt(new ObjectMapper()
+				.readTree(postCreateGameRequest().getBody()).get("id").asText());
+
+		final String uri = String.format("/games/export?fromId=%d&toId=%d", firstId, secondId);
+		ResponseEntity<String> response = restTemplate.getForEntity(generateFullUrl(uri), String.class);
+		assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+
+		String[] lines = response.getBody().split("\n");
+		assertThat(lines.length, equalTo(2));
+		assertThat(new ObjectMapper().readTree(lines[0]).get("id").asInt(), equalTo(firstId));
+		assertThat(new ObjectMapper().readTree(lines[1]).get("id").asInt(), equalTo(secondId));
+		assertThat(new ObjectMapper().readTree(lines[1]).get("pits").size(), equalTo(14));
+	}
+
+	@Test
+	@DisplayName("Should list the moves of a game and take back the last one")
+	public void testHistoryAndUndo() throws JsonProcessingException, InterruptedException {
+		final int gameId = Integer.parseInt(new ObjectMapper()
+				.readTree(postCreateGameRequest().getBody()).get("id").asText());
+		HttpEntity<String> request = new HttpEntity<>(null, httpHeaders);
+		restTemplate.exchange(generateFullUrl(String.format("/games/%d/pits/%d", gameId, 1)),
+				HttpMethod.PUT, request, String.class);
+
+		final String historyUri = generateFullUrl(String.format("/games/%d/history", gameId));
+		JsonNode history = new ObjectMapper().readTree(restTemplate.getForEntity(historyUri, String.class).getBody());
+		for (int attempt = 0; attempt < 100 && history.get("version").asInt() < 2; attempt++) {
+			Thread.sleep(10);
+			history = new ObjectMapper().readTree(restTemplate.getForEntity(historyUri, String.class).getBody());
+		}
+		assertThat(history.get("version").asInt(), equalTo(2));
+		JsonNode moves = history.get("moves");
+		assertThat(moves.size(), equalTo(1));
+		assertThat(moves.get(0).get("pit").asInt(), equalTo(1));
+		assertThat(moves.get(0).get("pits").toString(), equalTo("[0,7,7,7,7,7,1,6,6,6,6,6,6,0]"));
+
+		ResponseEntity<String> undo = restTemplate.exchange(
+				generateFullUrl(String.format("/games/%d/undo", gameId)), HttpMethod.POST, request, String.class);
+		assertThat(undo.getStatusCode(), equalTo(HttpStatus.OK));
+		JsonNode undone = new ObjectMapper().readTree(undo.getBody());
+		assertThat(undone.get("status").get("1").asText(), equalTo("6"));
+		assertThat(undone.get("status").get("7").asText(), equalTo("0"));
+		assertThat(undone.get("turn").asInt(), equalTo(0));
+
+		ResponseEntity<String> nothingToUndo = restTemplate.exchange(
+				generateFullUrl(String.format("/games/%d/undo", gameId)), HttpMethod.POST, request, String.class);
+		assertThat(nothingToUndo.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+	}
+
+	@Test
+	@DisplayName("Should serve the state of a game from the read model once a move has been projected")
+	public void testGetGame() throws JsonProcessingException, InterruptedException {
+		final int gameId = Integer.parseInt(new ObjectMapper()
+				.readTree(postCreateGameRequest().getBody()).get("id").asText());
+		final String uri = generateFullUrl(String.format("/games/%d", gameId));
+		JsonNode created = new ObjectMapper().readTree(restTemplate.getForEntity(uri, String.class).getBody());
+		assertThat(created.get("version").asInt(), equalTo(1));
+
+		HttpEntity<String> request = new HttpEntity<>(null, httpHeaders);
+		restTemplate.exchange(generateFullUrl(String.format("/games/%d/pits/%d", gameId, 1)),
+				HttpMethod.PUT, request, String.class);
+
+		JsonNode game = created;
+		for (int attempt = 0; attempt < 100 && game.get("version").asInt() < 2; attempt++) {
+			Thread.sleep(10);
+			game = new ObjectMapper().readTree(restTemplate.getForEntity(uri, String.class).getBody());
+		}
+		assertThat(game.get("version").asInt(), equalTo(2));
+		assertThat(game.get("status").get("7").asText(), equalTo("1"));
+		assertThat(game.get("scores").get("1").asInt(), equalTo(1));
+		assertThat(game.get("lastMove").get("pit").asInt(), equalTo(1));
+	}
+
+	@Test
+	@DisplayName("Should hold a wait for the next move open until the move is made")
+	public void testNext() throws Exception {
+		final int gameId = Integer.parseInt(new ObjectMapper()
+				.readTree(postCreateGameRequest().getBody()).get("id").asText());
+		final String uri = generateFullUrl(String.format("/games/%d/next?afterVersion=1&wait=10", gameId));
+		CompletableFuture<ResponseEntity<String>> next = CompletableFuture.supplyAsync(
+				() -> restTemplate.getForEntity(uri, String.class));
+
+		Thread.sleep(200);
+		HttpEntity<String> request = new HttpEntity<>(null, httpHeaders);
+		restTemplate.exchange(generateFullUrl(String.format("/games/%d/pits/%d", gameId, 1)),
+				HttpMethod.PUT, request, String.class);
+
+		ResponseEntity<String> response = next.get(10, TimeUnit.SECONDS);
+		assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+		JsonNode game = new ObjectMapper().readTree(response.getBody());
+		assertThat(game.get("version").asInt(), equalTo(2));
+		assertThat(game.get("lastMove").get("pit").asInt(), equalTo(1));
 	}
 
 	private ResponseEntity<String> postCreateGameRequest() {
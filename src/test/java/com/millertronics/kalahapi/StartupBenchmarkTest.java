@@ -0,0 +1,120 @@
+package com.millertronics.kalahapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Measures the time from launching an application process to its first successful move,
+ * with the default configuration, the fast profile, and the fast profile with the class-data-sharing archive
+ * when one has been built with mvn -Pcds package. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = 5;
+    private static final Path TARGET = Paths.get("target");
+    private static final Path CDS_ARCHIVE = TARGET.resolve("kalah-api.jsa");
+    private static final Path CDS_CLASSPATH = TARGET.resolve("classpath.txt");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("time to first successful move by startup mode")
+    public void timeToFirstMove() throws Exception {
+        report("default", List.of("-cp", System.getProperty("java.class.path")), List.of());
+        report("fast", List.of("-cp", System.getProperty("java.class.path")), List.of("--spring.profiles.active=fast"));
+        if (Files.exists(CDS_ARCHIVE) && Files.exists(CDS_CLASSPATH)) {
+            // the classpath must start with the one the archive was recorded with
+            final String classpath = TARGET.resolve("classes") + System.getProperty("path.separator")
+                    + new String(Files.readAllBytes(CDS_CLASSPATH), StandardCharsets.UTF_8).trim();
+            report("fast + AppCDS", List.of("-XX:SharedArchiveFile=" + CDS_ARCHIVE, "-cp", classpath),
+                    List.of("--spring.profiles.active=fast"));
+        } else {
+            System.out.println("fast + AppCDS: skipped, build the archive with mvn -Pcds package");
+        }
+    }
+
+    private void report(final String mode, final List<String> jvmArgs, final List<String> appArgs) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            millis[i] = timeToFirstMove(jvmArgs, appArgs);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%s: median %d ms, best %d ms to first move%n", mode, millis[RUNS / 2], millis[0]);
+        assertThat(millis[0], greaterThan(0L));
+    }
+
+    private long timeToFirstMove(final List<String> jvmArgs, final List<String> appArgs) throws Exception {
+        final int port = findFreePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add(KalahApiApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--kalah.janitor.enabled=false");
+        command.addAll(appArgs);
+
+        final long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            final String baseUrl = "http://localhost:" + port + "/games";
+            final long deadline = start + TimeUnit.SECONDS.toNanos(120);
+            while (System.nanoTime() < deadline) {
+                try {
+                    HttpResponse<String> created = send(baseUrl, "POST");
+                    final String gameId = objectMapper.readTree(created.body()).get("id").asText();
+                    if (send(baseUrl + "/" + gameId + "/pits/1", "PUT").statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("Application did not start");
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private HttpResponse<String> send(final String url, final String method) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
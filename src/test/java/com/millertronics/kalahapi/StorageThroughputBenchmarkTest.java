@@ -0,0 +1,103 @@
+package com.millertronics.kalahapi;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Compares move throughput of the in-memory database with the durable profile's file-backed database,
+ * storing every commit and with commits batched by a write delay. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class StorageThroughputBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("move throughput by storage mode")
+    public void throughputByStorage() throws Exception {
+        report("in-memory", "--spring.datasource.url=jdbc:h2:mem:kalah-benchmark");
+        report("durable, WRITE_DELAY=0", "--spring.profiles.active=durable",
+                "--kalah.durable.path=" + dataDir.resolve("sync"), "--kalah.durable.write-delay-ms=0");
+        report("durable, WRITE_DELAY=500", "--spring.profiles.active=durable",
+                "--kalah.durable.path=" + dataDir.resolve("delayed"), "--kalah.durable.write-delay-ms=500");
+    }
+
+    private void report(final String mode, final String... args) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(KalahApiApplication.class)
+                .run(append(args, "--server.port=0", "--kalah.janitor.enabled=false"))) {
+            GameService gameService = context.getBean(GameService.class);
+            play(gameService, WARM_UP);
+            final long moves = play(gameService, MEASUREMENT);
+            System.out.printf("%s: %.0f moves/s%n", mode, moves / (double) MEASUREMENT.toSeconds());
+            assertThat(moves, greaterThan(0L));
+        }
+    }
+
+    /**
+     * Each thread plays random legal moves, starting a new game whenever its game has finished
+     *
+     * @return number of moves made
+     */
+    private static long play(final GameService gameService, final Duration duration) throws InterruptedException {
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final LongAdder moves = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                GameEntity game = gameService.createGame();
+                while (System.nanoTime() < deadline) {
+                    final int legalMoves = gameService.findLegalMoves(game);
+                    if (game.isFinished() || legalMoves == 0) {
+                        game = gameService.createGame();
+                        continue;
+                    }
+                    int pitIndex;
+                    do {
+                        pitIndex = random.nextInt(GameEntity.PIT_SIZE);
+                    } while ((legalMoves & (1 << pitIndex)) == 0);
+                    try {
+                        game = gameService.makeMove(game.getId(), pitIndex);
+                        moves.increment();
+                    } catch (GameNotFoundException | IllegalGameMoveException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return moves.sum();
+    }
+
+    private static String[] append(final String[] args, final String... more) {
+        String[] all = new String[args.length + more.length];
+        System.arraycopy(args, 0, all, 0, args.length);
+        System.arraycopy(more, 0, all, args.length, more.length);
+        return all;
+    }
+}
@@ -0,0 +1,105 @@
+package com.millertronics.kalahapi;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameReadModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Time until a restarted node of the durable profile serves a million games from memory:
+ * restoring the read model from its snapshot, against starting without one and loading every game
+ * from the database as it is first read. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class WarmRestartBenchmarkTest {
+
+    private static final int GAMES = 1_000_000;
+    private static final int BATCH_SIZE = 10_000;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("time to ready with and without a read model snapshot")
+    public void timeToReady() throws GameNotFoundException, IOException {
+        final Path snapshot = dataDir.resolve("kalah.read-model");
+        try (ConfigurableApplicationContext context = start()) {
+            insertGames(context.getBean(JdbcTemplate.class));
+            final long warm = warmUp(context.getBean(GameReadModel.class));
+            System.out.printf("first start: %d games loaded from the database in %d ms%n", GAMES, warm);
+        }
+        System.out.printf("snapshot of %d games: %d bytes%n", GAMES, Files.size(snapshot));
+
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            final long ready = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertThat(context.getBean(GameReadModel.class).size(), equalTo(GAMES));
+            System.out.printf("restart with snapshot: ready with %d games in memory after %d ms%n", GAMES, ready);
+        }
+
+        Files.delete(snapshot);
+        start = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            final long started = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            final long warm = warmUp(context.getBean(GameReadModel.class));
+            System.out.printf("restart without snapshot: started after %d ms, %d games in memory after %d ms%n",
+                    started, GAMES, started + warm);
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(KalahApiApplication.class).run("--spring.profiles.active=durable",
+                "--kalah.durable.path=" + dataDir.resolve("kalah"), "--server.port=0", "--kalah.janitor.enabled=false");
+    }
+
+    /**
+     * Inserts games directly, as if played before the first shutdown
+     */
+    private static void insertGames(final JdbcTemplate jdbcTemplate) {
+        final String status = Arrays.stream(GameEntity.createInitialPits())
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(":"));
+        final Timestamp now = Timestamp.from(Instant.now());
+        for (int inserted = 0; inserted < GAMES; inserted += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Object[]{status, now});
+            }
+            jdbcTemplate.batchUpdate("insert into game_entity(status, turn, finished, move_count, updated_at, version)"
+                    + " values (?, 0, false, 0, ?, 1)", batch);
+        }
+    }
+
+    /**
+     * Reads every game once, loading those not in the read model from the database
+     *
+     * @return milliseconds taken
+     */
+    private static long warmUp(final GameReadModel gameReadModel) throws GameNotFoundException {
+        final long start = System.nanoTime();
+        for (int id = 1; id <= GAMES; id++) {
+            gameReadModel.getView(id);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
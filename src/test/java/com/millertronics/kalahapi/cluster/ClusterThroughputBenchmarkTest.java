@@ -0,0 +1,165 @@
+package com.millertronics.kalahapi.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.millertronics.kalahapi.KalahApiApplication;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+/**
+ * Starts clusters of 1 to MAX_NODES application processes on this machine and measures move throughput,
+ * with clients sending every request to a random node so that most are redirected to the owning node.
+ * Throughput has to grow near linearly with the nodes, by at least SCALING_EFFICIENCY of the single node
+ * throughput per node; as the nodes share this machine, the test is skipped without CORES_PER_NODE cores per node.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class ClusterThroughputBenchmarkTest {
+
+    private static final int MAX_NODES = 3;
+    private static final int CLIENTS_PER_NODE = 8;
+    private static final int CORES_PER_NODE = 4;
+    private static final double SCALING_EFFICIENCY = 0.7;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("move throughput should grow as nodes are added")
+    public void throughputByNodeCount() throws Exception {
+        Assumptions.assumeTrue(Runtime.getRuntime().availableProcessors() >= CORES_PER_NODE * MAX_NODES,
+                "needs " + CORES_PER_NODE * MAX_NODES + " cores for the nodes not to compete for them");
+        final double[] movesPerSecond = new double[MAX_NODES + 1];
+        for (int nodeCount = 1; nodeCount <= MAX_NODES; nodeCount++) {
+            List<String> nodes = new ArrayList<>();
+            for (int i = 0; i < nodeCount; i++) {
+                nodes.add("http://localhost:" + findFreePort());
+            }
+            List<Process> processes = new ArrayList<>();
+            try {
+                for (String node : nodes) {
+                    processes.add(startNode(node, nodes));
+                }
+                for (String node : nodes) {
+                    awaitReady(node);
+                }
+                runLoad(nodes, WARM_UP);
+                final long moves = runLoad(nodes, MEASUREMENT);
+                movesPerSecond[nodeCount] = moves / (double) MEASUREMENT.toSeconds();
+                System.out.printf("%d node(s): %.0f moves/s%n", nodeCount, movesPerSecond[nodeCount]);
+                assertThat(moves, greaterThan(0L));
+                assertThat(movesPerSecond[nodeCount],
+                        greaterThanOrEqualTo(SCALING_EFFICIENCY * nodeCount * movesPerSecond[1]));
+            } finally {
+                for (Process process : processes) {
+                    process.destroy();
+                    process.waitFor(30, TimeUnit.SECONDS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Each client creates a game on a random node, then plays its first move through another random node
+     *
+     * @return number of successful moves
+     */
+    private long runLoad(final List<String> nodes, final Duration duration) throws InterruptedException {
+        final int clients = CLIENTS_PER_NODE * nodes.size();
+        final long deadline = System.nanoTime() + duration.toNanos();
+        final LongAdder moves = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpResponse<String> created = send(nodes.get(random.nextInt(nodes.size())) + "/games", "POST");
+                        final String gameId = objectMapper.readTree(created.body()).get("id").asText();
+                        HttpResponse<String> moved = send(nodes.get(random.nextInt(nodes.size()))
+                                + "/games/" + gameId + "/pits/1", "PUT");
+                        if (moved.statusCode() == 200) {
+                            moves.increment();
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        return moves.sum();
+    }
+
+    private HttpResponse<String> send(final String url, final String method) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static Process startNode(final String self, final List<String> nodes) throws IOException {
+        final String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+                KalahApiApplication.class.getName(),
+                "--server.port=" + URI.create(self).getPort(),
+                "--kalah.cluster.enabled=true",
+                "--kalah.cluster.self=" + self,
+                "--kalah.cluster.nodes=" + String.join(",", nodes),
+                "--kalah.janitor.enabled=false")
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private void awaitReady(final String node) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        while (System.nanoTime() < deadline) {
+            try {
+                if (send(node + "/games", "POST").statusCode() == 201) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(node + " did not start");
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
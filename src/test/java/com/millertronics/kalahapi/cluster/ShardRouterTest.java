@@ -0,0 +1,152 @@
+package com.millertronics.kalahapi.cluster;
+
+import com.millertronics.kalahapi.exceptions.GameCapacityExceededException;
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardRouterTest {
+
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080", "http://node-c:8080");
+
+    @Test
+    @DisplayName("disabled router should keep IDs unchanged and treat every game as local")
+    public void disabledRouter_shouldBe_identity() throws GameNotFoundException {
+        ShardRouter router = new ShardRouter(false, "", Collections.emptyList(), 256, 64, 8);
+        assertThat(router.toPublicId(42), equalTo(42));
+        assertThat(router.toLocalId(42), equalTo(42));
+        assertThat(router.isLocal(42), equalTo(true));
+    }
+
+    @Test
+    @DisplayName("public IDs of games created on a node should be owned by that node and decode to the local ID")
+    public void publicId_shouldBe_ownedByCreatingNode() throws GameNotFoundException {
+        for (String self : NODES) {
+            ShardRouter router = new ShardRouter(true, self, NODES, 256, 64, 8);
+            final int firstLocalId = router.getFirstLocalId();
+            for (int localId = firstLocalId; localId < firstLocalId + 1000; localId++) {
+                final int publicId = router.toPublicId(localId);
+                assertThat(router.isLocal(publicId), equalTo(true));
+                assertThat(router.findOwner(publicId), equalTo(self));
+                assertThat(router.toLocalId(publicId), equalTo(localId));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("other public IDs of the same local ID should not be found")
+    public void aliasPublicId_shouldThrow_GameNotFoundException() throws GameNotFoundException {
+        ShardRouter router = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 8);
+        final int localId = router.getFirstLocalId() + 42;
+        final int publicId = router.toPublicId(localId);
+        assertThat(router.toLocalId(publicId), equalTo(localId));
+        for (int alias = localId * 256; alias < (localId + 1) * 256; alias++) {
+            if (alias != publicId) {
+                final int id = alias;
+                assertThrows(GameNotFoundException.class, () -> router.toLocalId(id));
+            }
+        }
+        assertThrows(GameNotFoundException.class, () -> router.toLocalId(-publicId));
+    }
+
+    @Test
+    @DisplayName("local IDs beyond the range of the current nodes should throw GameCapacityExceededException")
+    public void localIdBeyondCapacity_shouldThrow_GameCapacityExceededException() throws GameNotFoundException {
+        ShardRouter router = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 8);
+        final int maxLocalId = NODES.size() * (Integer.MAX_VALUE / 256 / 8) - 1;
+        assertThat(router.toLocalId(router.toPublicId(maxLocalId)), equalTo(maxLocalId));
+        assertThrows(GameCapacityExceededException.class, () -> router.toPublicId(maxLocalId + 1));
+
+        ShardRouter largest = new ShardRouter(true, NODES.get(0), NODES, 256, 64, NODES.size());
+        final int largestLocalId = NODES.size() * (Integer.MAX_VALUE / 256 / NODES.size()) - 1;
+        assertThat(largest.toLocalId(largest.toPublicId(largestLocalId)), equalTo(largestLocalId));
+    }
+
+    @Test
+    @DisplayName("nodes should agree on the owner of every game")
+    public void nodes_shouldAgreeOn_owner() {
+        ShardRouter nodeA = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 8);
+        ShardRouter nodeB = new ShardRouter(true, NODES.get(1), NODES, 256, 64, 8);
+        final int firstPublicId = nodeA.getFirstLocalId() * 256;
+        for (int publicId = 0; publicId < 2048; publicId++) {
+            assertThat(nodeA.findOwner(publicId), equalTo(nodeB.findOwner(publicId)));
+        }
+        for (int publicId = firstPublicId; publicId < firstPublicId + 2048; publicId++) {
+            assertThat(nodeA.findOwner(publicId), equalTo(nodeB.findOwner(publicId)));
+        }
+    }
+
+    @Test
+    @DisplayName("shards should be spread roughly evenly over the nodes")
+    public void shards_shouldBe_spreadOverNodes() {
+        ShardRouter router = new ShardRouter(true, NODES.get(0), NODES, 3000, 64, 8);
+        Map<String, Integer> shardsPerNode = new HashMap<>();
+        final int firstPublicId = router.getFirstLocalId() * 3000;
+        for (int shard = 0; shard < 3000; shard++) {
+            shardsPerNode.merge(router.findOwner(firstPublicId + shard), 1, Integer::sum);
+        }
+        for (String node : NODES) {
+            assertThat(shardsPerNode.get(node), greaterThan(600));
+            assertThat(shardsPerNode.get(node), lessThan(1400));
+        }
+    }
+
+    @Test
+    @DisplayName("adding a node should only give shards of new games to the new node")
+    public void addingNode_shouldOnlyMove_shardsToNewNode() {
+        ShardRouter before = new ShardRouter(true, NODES.get(0), NODES, 1024, 64, 8);
+        List<String> grown = List.of(NODES.get(0), NODES.get(1), NODES.get(2), "http://node-d:8080");
+        ShardRouter after = new ShardRouter(true, NODES.get(0), grown, 1024, 64, 8);
+        assertThat(after.getFirstLocalId(), greaterThan(before.getFirstLocalId()));
+        final int beforeFirstPublicId = before.getFirstLocalId() * 1024;
+        final int afterFirstPublicId = after.getFirstLocalId() * 1024;
+        for (int shard = 0; shard < 1024; shard++) {
+            final String owner = before.findOwner(beforeFirstPublicId + shard);
+            if (!owner.equals(after.findOwner(afterFirstPublicId + shard))) {
+                assertThat(after.findOwner(afterFirstPublicId + shard), equalTo("http://node-d:8080"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("games created before a node was added should stay with the node that created them")
+    public void addingNode_shouldKeep_existingGamesOnCreatingNode() throws GameNotFoundException {
+        List<String> grown = List.of(NODES.get(0), NODES.get(1), NODES.get(2), "http://node-d:8080");
+        ShardRouter nodeD = new ShardRouter(true, grown.get(3), grown, 256, 64, 8);
+        for (String self : NODES) {
+            ShardRouter before = new ShardRouter(true, self, NODES, 256, 64, 8);
+            ShardRouter after = new ShardRouter(true, self, grown, 256, 64, 8);
+            final int firstLocalId = before.getFirstLocalId();
+            for (int localId = firstLocalId; localId < firstLocalId + 1000; localId++) {
+                final int publicId = before.toPublicId(localId);
+                assertThat(after.findOwner(publicId), equalTo(self));
+                assertThat(nodeD.findOwner(publicId), equalTo(self));
+                assertThat(after.toLocalId(publicId), equalTo(localId));
+                assertThat(after.toPublicId(localId), equalTo(publicId));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("router should refuse more nodes than the cluster can grow to")
+    public void tooManyNodes_shouldThrow_IllegalStateException() {
+        assertThrows(IllegalStateException.class, () -> new ShardRouter(true, NODES.get(0), NODES, 256, 64, 2));
+    }
+
+    @Test
+    @DisplayName("router should refuse a self URL missing from the nodes")
+    public void unknownSelf_shouldThrow_IllegalStateException() {
+        assertThrows(IllegalStateException.class, () -> new ShardRouter(true, "http://elsewhere:8080", NODES, 256, 64, 8));
+    }
+}
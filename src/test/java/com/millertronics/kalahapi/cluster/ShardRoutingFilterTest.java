@@ -0,0 +1,81 @@
+package com.millertronics.kalahapi.cluster;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+class ShardRoutingFilterTest {
+
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080");
+
+    private ShardRouter shardRouter;
+    private ShardRoutingFilter shardRoutingFilter;
+
+    @BeforeEach
+    public void setup() {
+        shardRouter = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 2);
+        shardRoutingFilter = new ShardRoutingFilter(shardRouter);
+    }
+
+    @Test
+    @DisplayName("a 10-digit game ID owned by another node should be redirected to it")
+    public void tenDigitRemoteId_shouldBe_redirected() throws ServletException, IOException {
+        int gameId = 2_000_000_000;
+        while (shardRouter.isLocal(gameId)) {
+            gameId++;
+        }
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter("/games/" + gameId + "/pits/1", chain);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.TEMPORARY_REDIRECT.value()));
+        assertThat(response.getHeader(HttpHeaders.LOCATION), equalTo(NODES.get(1) + "/games/" + gameId + "/pits/1"));
+        assertThat(chain.getRequest(), nullValue());
+    }
+
+    @Test
+    @DisplayName("a 10-digit game ID owned by this node should be passed on")
+    public void tenDigitLocalId_shouldBe_passedOn() throws ServletException, IOException {
+        int gameId = 2_000_000_000;
+        while (!shardRouter.isLocal(gameId)) {
+            gameId++;
+        }
+        MockFilterChain chain = new MockFilterChain();
+        filter("/games/" + gameId, chain);
+
+        assertThat(chain.getRequest(), notNullValue());
+    }
+
+    @Test
+    @DisplayName("a game ID beyond the int range should be answered with 404")
+    public void overflowingId_shouldBe_notFound() throws ServletException, IOException {
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = filter("/games/9999999999", chain);
+
+        assertThat(response.getStatus(), equalTo(HttpStatus.NOT_FOUND.value()));
+        assertThat(response.getContentAsString(), containsString("\"code\":\"GAME_NOT_FOUND\""));
+        assertThat(chain.getRequest(), nullValue());
+    }
+
+    private MockHttpServletResponse filter(final String uri, final MockFilterChain chain)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        shardRoutingFilter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,68 @@
+package com.millertronics.kalahapi.evaluation;
+
+import com.millertronics.kalahapi.game.GameStatusCalculator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Measures batch evaluation throughput in positions per second on random mid-game boards.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class PositionEvaluatorBenchmarkTest {
+
+    private static final int POSITIONS = 500_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    @DisplayName("positions evaluated per second")
+    public void evaluationThroughput() throws IOException {
+        final byte[] body = createBody(new Random(42));
+        PositionEvaluator positionEvaluator = new PositionEvaluator(new GameStatusCalculator());
+        try {
+            positionEvaluator.evaluate(new ByteArrayInputStream(body), OutputStream.nullOutputStream());
+
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                final long start = System.nanoTime();
+                final long evaluated = positionEvaluator.evaluate(new ByteArrayInputStream(body), OutputStream.nullOutputStream());
+                best = Math.min(best, System.nanoTime() - start);
+                assertThat(evaluated, equalTo((long) POSITIONS));
+            }
+            System.out.printf("%d cores: %.0f positions/s (%.1f MB of Json in)%n",
+                    Runtime.getRuntime().availableProcessors(), POSITIONS / (best / 1e9), body.length / 1e6);
+        } finally {
+            positionEvaluator.shutdown();
+        }
+    }
+
+    /**
+     * Spreads the 72 stones of a standard game randomly over the board and picks a random non-kalah pit
+     */
+    private static byte[] createBody(final Random random) {
+        StringBuilder body = new StringBuilder(POSITIONS * 64).append('[');
+        for (int i = 0; i < POSITIONS; i++) {
+            int[] pits = new int[14];
+            for (int stone = 0; stone < 72; stone++) {
+                pits[random.nextInt(14)]++;
+            }
+            body.append(i == 0 ? "" : ",").append("{\"pits\":[");
+            for (int p = 0; p < pits.length; p++) {
+                body.append(p == 0 ? "" : ",").append(pits[p]);
+            }
+            int pit = random.nextInt(12) + 1;
+            body.append("],\"pit\":").append(pit >= 7 ? pit + 1 : pit).append('}');
+        }
+        return body.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.millertronics.kalahapi.evaluation;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.game.GameStatusCalculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PositionEvaluatorTest {
+
+    private final PositionEvaluator positionEvaluator = new PositionEvaluator(new GameStatusCalculator());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    public void tearDown() {
+        positionEvaluator.shutdown();
+    }
+
+    @Test
+    @DisplayName("evaluate should apply each move and report the next turn, capture and end of game")
+    public void evaluate_withLegalMoves_shouldReturn_resultingBoards() throws IOException {
+        JsonNode results = evaluate("[{\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],\"pit\":1},"
+                + "{\"pits\":[1,0,0,0,0,0,10,0,3,0,0,4,0,20],\"pit\":1},"
+                + "{\"pits\":[0,0,0,0,0,1,30,0,0,0,0,0,5,0],\"pit\":6}]");
+
+        assertThat(results.size(), equalTo(3));
+        assertThat(results.get(0).get("legal").asBoolean(), equalTo(true));
+        assertThat(results.get(0).get("pits").toString(), equalTo("[0,7,7,7,7,7,1,6,6,6,6,6,6,0]"));
+        assertThat(results.get(0).get("turn").asInt(), equalTo(1));
+        assertThat(results.get(0).get("capture").asBoolean(), equalTo(false));
+
+        assertThat(results.get(1).get("pits").toString(), equalTo("[0,5,0,0,0,0,10,0,3,0,0,0,0,20]"));
+        assertThat(results.get(1).get("capture").asBoolean(), equalTo(true));
+        assertThat(results.get(1).get("turn").asInt(), equalTo(2));
+
+        assertThat(results.get(2).get("finished").asBoolean(), equalTo(true));
+        assertThat(results.get(2).get("turn").asInt(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("evaluate should report the reason a move or board is rejected")
+    public void evaluate_withIllegalMoves_shouldReturn_reasonCodes() throws IOException {
+        JsonNode results = evaluate("[{\"pits\":[0,6,6,6,6,6,0,6,6,6,6,6,6,0],\"pit\":1},"
+                + "{\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],\"pit\":7},"
+                + "{\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],\"pit\":15},"
+                + "{\"pits\":[6,6,6],\"pit\":1},"
+                + "{\"pit\":1}]");
+
+        assertThat(results.get(0).get("code").asText(), equalTo(GameErrorCode.EMPTY_PIT.name()));
+        assertThat(results.get(1).get("code").asText(), equalTo(GameErrorCode.KALAH_PIT.name()));
+        assertThat(results.get(2).get("code").asText(), equalTo(GameErrorCode.PIT_OUT_OF_RANGE.name()));
+        assertThat(results.get(3).get("code").asText(), equalTo(GameErrorCode.INVALID_BOARD.name()));
+        assertThat(results.get(4).get("code").asText(), equalTo(GameErrorCode.INVALID_BOARD.name()));
+        for (JsonNode result : results) {
+            assertThat(result.get("legal").asBoolean(), equalTo(false));
+        }
+    }
+
+    @Test
+    @DisplayName("evaluate should keep the order of positions across chunks")
+    public void evaluate_withManyChunks_shouldKeep_order() throws IOException {
+        final int positions = PositionEvaluator.CHUNK_SIZE * 5 + 7;
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < positions; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            // pit i % 6 + 1 on player one's side, so each result is recognisable by its emptied pit
+            body.append("{\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],\"pit\":").append(i % 6 + 1).append('}');
+        }
+        JsonNode results = evaluate(body.append(']').toString());
+
+        assertThat(results.size(), equalTo(positions));
+        for (int i = 0; i < positions; i++) {
+            assertThat(results.get(i).get("pits").get(i % 6).asInt(), equalTo(0));
+        }
+    }
+
+    @Test
+    @DisplayName("evaluate should accept an empty batch")
+    public void evaluate_withEmptyArray_shouldReturn_emptyArray() throws IOException {
+        assertThat(evaluate("[]").size(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("evaluate should throw a JsonParseException if the body is not an array of positions")
+    public void evaluate_withMalformedBody_shouldThrow_JsonParseException() {
+        assertThrows(JsonParseException.class, () -> evaluate("{\"pits\":[6,6]}"));
+        assertThrows(JsonParseException.class, () -> evaluate("[1,2,3]"));
+    }
+
+    private JsonNode evaluate(final String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        positionEvaluator.evaluate(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
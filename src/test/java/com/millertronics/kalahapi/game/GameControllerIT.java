@@ -1,7 +1,9 @@
 package com.millertronics.kalahapi.game;
 
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
 import com.millertronics.kalahapi.exceptions.GameNotFoundException;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import com.millertronics.kalahapi.exceptions.handlers.CustomExceptionHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,16 +12,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.HashMap;
 import java.util.Map;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -91,7 +104,10 @@ public class GameControllerIT {
         when(gameService.makeMove(GAME_ID, 0)).thenThrow(GameNotFoundException.class);
         mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + 1))
                 .andExpect(status().isNotFound())
-                .andExpect(status().reason("Invalid game ID."));
+                .andExpect(content().contentType(CustomExceptionHandler.PROBLEM_JSON_VALUE))
+                .andExpect(jsonPath("$.title").value("Invalid game ID."))
+                .andExpect(jsonPath("$.status").value(404))
+                .andExpect(jsonPath("$.code").value(GameErrorCode.GAME_NOT_FOUND.name()));
     }
 
     @Test
@@ -100,7 +116,104 @@ public class GameControllerIT {
         when(gameService.makeMove(GAME_ID, 0)).thenThrow(IllegalGameMoveException.class);
         mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + 1))
                 .andExpect(status().isBadRequest())
-                .andExpect(status().reason("Illegal game move."));
+                .andExpect(content().contentType(CustomExceptionHandler.PROBLEM_JSON_VALUE))
+                .andExpect(jsonPath("$.title").value("Illegal game move."))
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.code").value(GameErrorCode.ILLEGAL_MOVE.name()));
+    }
+
+    @Test
+    @DisplayName("PUT /games/:gameId/pits/:pitId should respond with 409 when another change to the game was saved first")
+    public void play_shouldRespondWith_conflict() throws Exception {
+        when(gameService.makeMove(GAME_ID, 0)).thenThrow(new ObjectOptimisticLockingFailureException(GameEntity.class, GAME_ID));
+        mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + 1))
+                .andExpect(status().isConflict())
+                .andExpect(content().contentType(CustomExceptionHandler.PROBLEM_JSON_VALUE))
+                .andExpect(jsonPath("$.title").value("Game changed concurrently."))
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.code").value(GameErrorCode.CONCURRENT_CHANGE.name()));
+    }
+
+    @Test
+    @DisplayName("PUT /games/:gameId/pits/:pitId should respond with the reason code and detail of an illegal move")
+    public void play_shouldRespondWith_reasonCode() throws Exception {
+        when(gameService.makeMove(GAME_ID, 0))
+                .thenThrow(new IllegalGameMoveException(GameErrorCode.EMPTY_PIT, "Cannot move stones from an empty pit"));
+        mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(GameErrorCode.EMPTY_PIT.name()))
+                .andExpect(jsonPath("$.detail").value("Cannot move stones from an empty pit"));
+    }
+
+    @Test
+    @DisplayName("PUT /games/:gameId/pits/:pitId retried with the same Idempotency-Key should replay the response without moving again")
+    public void play_withRepeated_idempotencyKey_shouldReplay_response() throws Exception {
+        Map<String, String> formattedStatus = new HashMap<>();
+        formattedStatus.put("1", "0");
+        final int pitId = 1;
+        when(gameService.makeMove(GAME_ID, pitId - 1)).thenReturn(game);
+        when(game.getFormattedStatus()).thenReturn(formattedStatus);
+
+        mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + pitId)
+                .header(GameController.IDEMPOTENCY_KEY_HEADER, "retry-me"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotentResponseCache.REPLAYED_HEADER));
+        mockMvc.perform(put("/games/" + GAME_ID + "/pits/" + pitId)
+                .header(GameController.IDEMPOTENCY_KEY_HEADER, "retry-me"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotentResponseCache.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id").value(String.valueOf(GAME_ID)))
+                .andExpect(jsonPath("$.status.1").value("0"));
+
+        verify(gameService, times(1)).makeMove(GAME_ID, pitId - 1);
+    }
+
+    @Test
+    @DisplayName("PUT /games/:gameId/pits/:pitId with an Idempotency-Key used by another client should make the move")
+    public void play_withIdempotencyKey_ofOtherClient_shouldMove() throws Exception {
+        final int gameId = 3;
+        when(gameService.makeMove(gameId, 0)).thenReturn(game);
+        when(game.getFormattedStatus()).thenReturn(new HashMap<>());
+
+        mockMvc.perform(put("/games/" + gameId + "/pits/" + 1)
+                .header(GameController.IDEMPOTENCY_KEY_HEADER, "1")
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.1");
+                    return request;
+                }))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/games/" + gameId + "/pits/" + 1)
+                .header(GameController.IDEMPOTENCY_KEY_HEADER, "1")
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.2");
+                    return request;
+                }))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotentResponseCache.REPLAYED_HEADER));
+
+        verify(gameService, times(2)).makeMove(gameId, 0);
+    }
+
+    @Test
+    @DisplayName("PUT /games/:gameId/pits/:pitId should respond with 429 once a client exceeds its move rate on a game")
+    public void play_overRateLimit_shouldRespondWith_tooManyRequests() throws Exception {
+        final int gameId = 2;
+        when(gameService.makeMove(gameId, 0)).thenReturn(game);
+        when(game.getFormattedStatus()).thenReturn(new HashMap<>());
+
+        // the default burst is 40 moves; keep moving until the bucket runs dry
+        MvcResult result = null;
+        for (int i = 0; i < 1000; i++) {
+            result = mockMvc.perform(put("/games/" + gameId + "/pits/" + 1)).andReturn();
+            if (result.getResponse().getStatus() != HttpStatus.OK.value()) {
+                break;
+            }
+        }
+        assertThat(result.getResponse().getStatus(), equalTo(HttpStatus.TOO_MANY_REQUESTS.value()));
+        assertThat(result.getResponse().getHeader(HttpHeaders.RETRY_AFTER), notNullValue());
+        assertThat(result.getResponse().getContentType(), equalTo(CustomExceptionHandler.PROBLEM_JSON_VALUE));
+        assertThat(result.getResponse().getContentAsString(),
+                containsString("\"code\":\"" + GameErrorCode.RATE_LIMITED.name() + "\""));
     }
 
 }
@@ -125,4 +125,24 @@ class GameEntityTest {
         assertThat(formattedStatus.get("13"), equalTo("6"));
         assertThat(formattedStatus.get("14"), equalTo("0"));
     }
+
+    @Test
+    @DisplayName("updateStatus should mark the game finished once every non-kalah pit is empty")
+    public void updateStatus_withEmptyPits_should_finishGame() throws GameStatusViolationException {
+        GameEntity gameEntity = new GameEntity();
+        assertThat(gameEntity.isFinished(), equalTo(false));
+        assertThat(gameEntity.getTurn(), equalTo(GameEntity.NO_PLAYER));
+
+        gameEntity.updateStatus(new int[]{
+                0, 7, 7, 7, 7, 7, 1,
+                6, 6, 6, 6, 6, 6, 0
+        });
+        assertThat(gameEntity.isFinished(), equalTo(false));
+
+        gameEntity.updateStatus(new int[]{
+                0, 0, 0, 0, 0, 0, 40,
+                0, 0, 0, 0, 0, 0, 32
+        });
+        assertThat(gameEntity.isFinished(), equalTo(true));
+    }
 }
@@ -0,0 +1,143 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GameJanitorTest {
+
+    private static final Instant NOW = Instant.parse("2021-02-01T12:00:00Z");
+    private static final Instant FINISHED_BEFORE = NOW.minus(Duration.ofMinutes(10));
+    private static final Instant IDLE_BEFORE = NOW.minus(Duration.ofHours(24));
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080");
+
+    @TempDir
+    Path archiveDir;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final ShardRouter shardRouter = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 8);
+
+    private GameJanitor gameJanitor;
+
+    @BeforeEach
+    public void setup() {
+        gameJanitor = new GameJanitor(gameRepository, new GameArchive(shardRouter, archiveDir.toString()), eventPublisher,
+                Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofMinutes(10), Duration.ofHours(24), 10);
+    }
+
+    @Test
+    @DisplayName("sweep should archive expired games by public ID before deleting them in one batch")
+    public void sweep_should_archiveAndDelete_expiredGames() throws IOException {
+        GameEntity played = game(3);
+        played.updateStatus(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0});
+        played.setTurn(GameEntity.PLAYER_ONE);
+        played.recordMove(0, false);
+        List<GameEntity> expired = List.of(played, game(5));
+        when(gameRepository.findExpired(eq(FINISHED_BEFORE), eq(IDLE_BEFORE), any(Pageable.class))).thenReturn(expired);
+        when(gameRepository.deleteExpired(List.of(3, 5), FINISHED_BEFORE, IDLE_BEFORE)).thenReturn(2);
+
+        assertThat(gameJanitor.sweep(), equalTo(2));
+
+        final int firstId = shardRouter.toPublicId(3);
+        final int lastId = shardRouter.toPublicId(5);
+        List<Path> archives = listArchives();
+        assertThat(archives.size(), equalTo(1));
+        assertThat(archives.get(0).getFileName().toString(), startsWith("games-" + firstId + "-" + lastId + "-"));
+        List<String> records = readArchive(archives.get(0));
+        assertThat(records.size(), equalTo(2));
+        assertThat(records.get(0), equalTo("{\"id\":" + firstId + ",\"pits\":[0,7,7,7,7,7,1,6,6,6,6,6,6,0],\"turn\":1,"
+                + "\"finished\":false,\"version\":1,\"moveCount\":1,\"openingPit\":1,"
+                + "\"moves\":[{\"pit\":1,\"capture\":false,\"endGame\":false}]}"));
+        assertThat(records.get(1), equalTo("{\"id\":" + lastId + ",\"pits\":[6,6,6,6,6,6,0,6,6,6,6,6,6,0],\"turn\":0,"
+                + "\"finished\":false,\"version\":1,\"moveCount\":0,\"moves\":[]}"));
+
+        ArgumentCaptor<GamesEvictedEvent> event = ArgumentCaptor.forClass(GamesEvictedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getGameIds(), equalTo(List.of(3, 5)));
+    }
+
+    @Test
+    @DisplayName("sweep should keep earlier archives of the same game IDs")
+    public void sweep_withReusedIds_shouldKeep_earlierArchives() throws IOException {
+        when(gameRepository.findExpired(eq(FINISHED_BEFORE), eq(IDLE_BEFORE), any(Pageable.class)))
+                .thenReturn(List.of(game(3)))
+                .thenReturn(List.of(game(3)));
+        when(gameRepository.deleteExpired(List.of(3), FINISHED_BEFORE, IDLE_BEFORE)).thenReturn(1);
+
+        gameJanitor.sweep();
+        gameJanitor.sweep();
+
+        assertThat(listArchives().size(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("sweep should not delete anything when no game has expired")
+    public void sweep_withoutExpiredGames_shouldNot_delete() {
+        when(gameRepository.findExpired(eq(FINISHED_BEFORE), eq(IDLE_BEFORE), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertThat(gameJanitor.sweep(), equalTo(0));
+
+        verify(gameRepository, never()).deleteExpired(anyCollection(), any(Instant.class), any(Instant.class));
+        verify(eventPublisher, never()).publishEvent(any(GamesEvictedEvent.class));
+    }
+
+    private static GameEntity game(final int id) {
+        GameEntity game = new GameEntity();
+        game.setId(id);
+        return game;
+    }
+
+    private List<Path> listArchives() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".ndjson.gz")).collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> readArchive(final Path file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GameReadCoalescerTest {
+
+    private static final int GAME_ID = 3;
+    private static final int READERS = 8;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Test
+    @DisplayName("concurrent reads of the same game should share one repository load")
+    public void findGame_concurrently_shouldLoadOnce() throws Exception {
+        GameReadCoalescer coalescer = new GameReadCoalescer(gameRepository);
+        GameEntity game = new GameEntity();
+        CountDownLatch release = new CountDownLatch(1);
+        when(gameRepository.findById(GAME_ID)).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.of(game);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS);
+        try {
+            List<Future<GameEntity>> reads = new ArrayList<>();
+            for (int i = 0; i < READERS; i++) {
+                reads.add(executor.submit(() -> coalescer.findGame(GAME_ID)));
+            }
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (coalescer.getMetrics().get("coalesced") < READERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<GameEntity> read : reads) {
+                assertThat(read.get(10, TimeUnit.SECONDS), sameInstance(game));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(gameRepository, times(1)).findById(GAME_ID);
+        assertThat(coalescer.getMetrics().get("loads"), equalTo(1L));
+        assertThat(coalescer.getMetrics().get("coalesced"), equalTo((long) READERS - 1));
+    }
+
+    @Test
+    @DisplayName("reads after a load has completed should load the game again")
+    public void findGame_sequentially_shouldLoadEachTime() throws GameNotFoundException {
+        GameReadCoalescer coalescer = new GameReadCoalescer(gameRepository);
+        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.of(new GameEntity()));
+
+        coalescer.findGame(GAME_ID);
+        coalescer.findGame(GAME_ID);
+
+        verify(gameRepository, times(2)).findById(GAME_ID);
+        assertThat(coalescer.getMetrics().get("coalesced"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("findGame should throw a GameNotFoundException for an unknown game")
+    public void findGame_withUnknownGame_shouldThrow_GameNotFoundException() {
+        GameReadCoalescer coalescer = new GameReadCoalescer(gameRepository);
+        when(gameRepository.findById(GAME_ID)).thenReturn(Optional.empty());
+        assertThrows(GameNotFoundException.class, () -> coalescer.findGame(GAME_ID));
+    }
+}
@@ -0,0 +1,177 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GameReadModelTest {
+
+    private static final int GAME_ID = 7;
+
+    @Mock
+    private GameReadCoalescer gameReadCoalescer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final List<Runnable> queued = new ArrayList<>();
+
+    private GameReadModel gameReadModel;
+
+    @BeforeEach
+    public void setup() {
+        gameReadModel = new GameReadModel(new GameStatusCalculator(), gameReadCoalescer, eventPublisher, queued::add);
+    }
+
+    @Test
+    @DisplayName("a move should be visible only once it has been projected")
+    public void onGameMoved_shouldProject_asynchronously() throws GameNotFoundException {
+        GameEntity game = move(game(), new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}, GameEntity.PLAYER_ONE, 0);
+        gameReadModel.onGameMoved(new GameMovedEvent(game, 0, false));
+        assertThat(gameReadModel.size(), equalTo(0));
+
+        runQueued();
+        GameReadModel.GameView view = gameReadModel.getView(GAME_ID);
+
+        assertThat(view.getVersion(), equalTo(2L));
+        assertThat(view.getStatus().get("7"), equalTo("1"));
+        assertThat(view.getPlayerOneScore(), equalTo(1));
+        assertThat(view.getPlayerTwoScore(), equalTo(0));
+        assertThat(view.getTurn(), equalTo(GameEntity.PLAYER_ONE));
+        assertThat(view.getLegalMoves(), equalTo(0b111110));
+        assertThat(view.getLastMovePit(), equalTo(1));
+        assertThat(view.getMoves().size(), equalTo(1));
+        assertThat(view.getMoves().get(0).getPitIndex(), equalTo(0));
+        assertThat(gameReadModel.getMetrics().get("projected"), equalTo(1L));
+        verify(eventPublisher).publishEvent(any(GameProjectedEvent.class));
+        verify(gameReadCoalescer, never()).findGame(anyInt());
+    }
+
+    @Test
+    @DisplayName("a change projected late should not replace the view of a later version")
+    public void onGameMoved_withOlderVersion_shouldKeep_laterView() throws GameNotFoundException {
+        GameEntity first = move(game(), new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}, GameEntity.PLAYER_ONE, 0);
+        GameEntity second = move(game(), new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}, GameEntity.PLAYER_ONE, 0);
+        second = move(second, new int[]{0, 0, 8, 8, 8, 8, 2, 7, 7, 6, 6, 6, 6, 0}, GameEntity.PLAYER_TWO, 1);
+
+        gameReadModel.onGameMoved(new GameMovedEvent(second, 1, false));
+        gameReadModel.onGameMoved(new GameMovedEvent(first, 0, false));
+        runQueued();
+
+        GameReadModel.GameView view = gameReadModel.getView(GAME_ID);
+        assertThat(view.getVersion(), equalTo(3L));
+        assertThat(view.getTurn(), equalTo(GameEntity.PLAYER_TWO));
+        assertThat(view.getLastMovePit(), equalTo(2));
+        verify(eventPublisher, times(1)).publishEvent(any(GameProjectedEvent.class));
+    }
+
+    @Test
+    @DisplayName("getView should load and project a game not seen before once")
+    public void getView_withUnseenGame_shouldLoadOnce() throws GameNotFoundException {
+        when(gameReadCoalescer.findGame(GAME_ID)).thenReturn(game());
+
+        GameReadModel.GameView first = gameReadModel.getView(GAME_ID);
+        GameReadModel.GameView second = gameReadModel.getView(GAME_ID);
+
+        assertThat(second, sameInstance(first));
+        assertThat(first.getLastMovePit(), nullValue());
+        assertThat(first.getLegalMoves(), equalTo(0b1111110111111));
+        verify(gameReadCoalescer, times(1)).findGame(GAME_ID);
+    }
+
+    @Test
+    @DisplayName("getView should throw a GameNotFoundException for an unknown game")
+    public void getView_withUnknownGame_shouldThrow_GameNotFoundException() throws GameNotFoundException {
+        when(gameReadCoalescer.findGame(GAME_ID)).thenThrow(new GameNotFoundException("Game not found for ID: " + GAME_ID));
+        assertThrows(GameNotFoundException.class, () -> gameReadModel.getView(GAME_ID));
+        assertThat(gameReadModel.size(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("an undo should replace the view and eviction should drop it")
+    public void onGameUndone_shouldReplace_andEviction_shouldDrop_view() throws GameNotFoundException {
+        GameEntity game = move(game(), new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}, GameEntity.PLAYER_ONE, 0);
+        gameReadModel.onGameMoved(new GameMovedEvent(game, 0, false));
+        runQueued();
+
+        game.undoLastMove(GameEntity.createInitialPits(), GameEntity.NO_PLAYER);
+        save(game);
+        gameReadModel.onGameUndone(new GameUndoneEvent(game, 0, false));
+        runQueued();
+        assertThat(gameReadModel.getView(GAME_ID).getVersion(), equalTo(3L));
+        assertThat(gameReadModel.getView(GAME_ID).getLastMovePit(), nullValue());
+
+        gameReadModel.onGamesEvicted(new GamesEvictedEvent(List.of(GAME_ID)));
+        assertThat(gameReadModel.size(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("the spectator record should be serialized once per version of the game")
+    public void getRecord_shouldBe_serializedOncePerVersion() throws GameNotFoundException {
+        GameEntity game = move(game(), new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}, GameEntity.PLAYER_ONE, 0);
+        gameReadModel.onGameMoved(new GameMovedEvent(game, 0, false));
+        runQueued();
+
+        byte[] first = gameReadModel.getView(GAME_ID).getRecord(1799);
+        assertThat(gameReadModel.getView(GAME_ID).getRecord(1799), sameInstance(first));
+        assertThat(new String(first, StandardCharsets.UTF_8),
+                startsWith("{\"id\":1799,\"pits\":[0,7,7,7,7,7,1,6,6,6,6,6,6,0],\"turn\":1,\"finished\":false"));
+
+        game = move(game, new int[]{0, 0, 8, 8, 8, 8, 2, 7, 7, 6, 6, 6, 6, 0}, GameEntity.PLAYER_TWO, 1);
+        gameReadModel.onGameMoved(new GameMovedEvent(game, 1, false));
+        runQueued();
+        assertThat(new String(gameReadModel.getView(GAME_ID).getRecord(1799), StandardCharsets.UTF_8),
+                startsWith("{\"id\":1799,\"pits\":[0,0,8,8,8,8,2,7,7,6,6,6,6,0],\"turn\":2"));
+    }
+
+    private void runQueued() {
+        queued.forEach(Runnable::run);
+        queued.clear();
+    }
+
+    private static GameEntity move(final GameEntity game, final int[] pits, final int turn, final int pitIndex) {
+        game.updateStatus(pits);
+        game.setTurn(turn);
+        game.recordMove(pitIndex, false);
+        save(game);
+        return game;
+    }
+
+    /**
+     * Stamps and versions a game as saving it through the repository would
+     */
+    private static void save(final GameEntity game) {
+        game.touch();
+        ReflectionTestUtils.setField(game, "version", game.getVersion() + 1);
+    }
+
+    private static GameEntity game() {
+        GameEntity game = new GameEntity();
+        game.setId(GAME_ID);
+        return game;
+    }
+}
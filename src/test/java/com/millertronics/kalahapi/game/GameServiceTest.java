@@ -1,14 +1,18 @@
 package com.millertronics.kalahapi.game;
 
 
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import com.millertronics.kalahapi.exceptions.GameCapacityExceededException;
 import com.millertronics.kalahapi.exceptions.GameNotFoundException;
 import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Optional;
 
@@ -33,15 +37,25 @@ class GameServiceTest {
     @Mock
     private GameStatusCalculator gameStatusCalculator;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MoveTransitionCache moveTransitionCache;
+
+    @Mock
+    private ShardRouter shardRouter;
+
     @BeforeEach
     public void setup() {
-        gameService = new GameService(gameRepository, gameStatusCalculator);
+        gameService = new GameService(gameRepository, gameStatusCalculator, eventPublisher, moveTransitionCache, shardRouter);
     }
 
     @Test
     @DisplayName("createGame should return a game entity")
     public void createGame_shouldReturn_game() {
         GameEntity expected = new GameEntity();
+        expected.setId(1);
         // Might be worth removing new GameEntity() from create method
         // so that I can avoid using Mockito.any here.
         when(gameRepository.save(any(GameEntity.class))).thenReturn(expected);
@@ -51,36 +65,52 @@ class GameServiceTest {
         verify(gameRepository).save(any(GameEntity.class));
     }
 
+    @Test
+    @DisplayName("createGame should throw a GameCapacityExceededException once no public ID can be issued for the game")
+    public void createGame_beyondCapacity_shouldThrow_GameCapacityExceededException() {
+        GameEntity saved = new GameEntity();
+        saved.setId(7);
+        when(gameRepository.save(any(GameEntity.class))).thenReturn(saved);
+        when(shardRouter.toPublicId(7)).thenThrow(new GameCapacityExceededException("Game 7 is beyond capacity"));
+
+        assertThrows(GameCapacityExceededException.class, () -> gameService.createGame());
+    }
+
     @Test
     @DisplayName("makeMove should return a game entity")
     public void makeMove_shouldReturn_game() throws IllegalGameMoveException, GameNotFoundException {
         final int gameId = 7;
-        final int pitId = 77;
+        final int pitId = 1;
         GameEntity expected = mock(GameEntity.class);
         when(gameRepository.findById(gameId)).thenReturn(Optional.of(expected));
         final int[] pits = new int[4];
-        when(gameStatusCalculator.redistributeStones(expected, pitId)).thenReturn(pits);
+        MoveTransitionCache.Transition transition = new MoveTransitionCache.Transition(
+                new int[4], pitId, pits, GameEntity.PLAYER_TWO, false, 0);
+        when(moveTransitionCache.apply(expected, pitId)).thenReturn(transition);
         when(gameRepository.save(expected)).thenReturn(expected);
 
         final GameEntity result = gameService.makeMove(gameId, pitId);
         assertThat(result, equalTo(expected));
 
         verify(gameRepository).findById(gameId);
-        verify(gameStatusCalculator).redistributeStones(expected, pitId);
+        verify(moveTransitionCache).apply(expected, pitId);
         verify(expected).updateStatus(pits);
+        verify(expected).setTurn(GameEntity.PLAYER_TWO);
+        verify(expected).recordMove(pitId, false);
+        verify(eventPublisher).publishEvent(any(GameMovedEvent.class));
     }
 
     @Test
     @DisplayName("makeMove with invalid gameId should throw a GameNotFoundException")
     public void makeMove_withInvalid_gameId_shouldThrow_GameNotFoundException() {
         final int gameId = 7;
-        final int pitId = 77;
+        final int pitId = 1;
         when(gameRepository.findById(gameId)).thenReturn(Optional.empty());
 
         assertThrows(GameNotFoundException.class, () -> gameService.makeMove(gameId, pitId));
 
         verify(gameRepository).findById(gameId);
-        verifyNoInteractions(gameStatusCalculator);
+        verifyNoInteractions(moveTransitionCache);
         verify(gameRepository, never()).save(any(GameEntity.class));
     }
 
@@ -88,15 +118,75 @@ class GameServiceTest {
     @DisplayName("makeMove with invalid pitId should throw an IllegalGameMoveException")
     public void makeMove_withInvalid_pitId_shouldThrow_IllegalGameMoveException() throws IllegalGameMoveException {
         final int gameId = 7;
-        final int pitId = 77;
+        final int pitId = 1;
         GameEntity expected = new GameEntity();
         when(gameRepository.findById(gameId)).thenReturn(Optional.of(expected));
-        when(gameStatusCalculator.redistributeStones(expected, pitId)).thenThrow(IllegalGameMoveException.class);
+        when(moveTransitionCache.apply(expected, pitId)).thenThrow(IllegalGameMoveException.class);
 
         assertThrows(IllegalGameMoveException.class, () -> gameService.makeMove(gameId, pitId));
 
         verify(gameRepository).findById(gameId);
-        verify(gameStatusCalculator).redistributeStones(expected, pitId);
+        verify(moveTransitionCache).apply(expected, pitId);
+        verify(gameRepository, never()).save(any(GameEntity.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("makeMove with pitId outside the board should throw an IllegalGameMoveException without loading the game")
+    public void makeMove_withOutOfRange_pitId_shouldThrow_beforeRepositoryAccess() {
+        final int gameId = 7;
+
+        assertThrows(IllegalGameMoveException.class, () -> gameService.makeMove(gameId, 77));
+        assertThrows(IllegalGameMoveException.class, () -> gameService.makeMove(gameId, -1));
+        assertThrows(IllegalGameMoveException.class, () -> gameService.makeMove(gameId, GameEntity.PIT_SIZE - 1));
+
+        verifyNoInteractions(gameRepository);
+        verifyNoInteractions(moveTransitionCache);
+    }
+
+    @Test
+    @DisplayName("undoMove should restore the position before the last move")
+    public void undoMove_shouldRestore_previousPosition() throws IllegalGameMoveException, GameNotFoundException {
+        final int gameId = 7;
+        GameEntity game = new GameEntity();
+        game.updateStatus(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0});
+        game.setTurn(GameEntity.PLAYER_ONE);
+        game.recordMove(0, false);
+        when(gameRepository.findById(gameId)).thenReturn(Optional.of(game));
+        when(gameRepository.save(game)).thenReturn(game);
+
+        final GameEntity result = gameService.undoMove(gameId);
+
+        assertThat(result.getPits(), equalTo(new GameEntity().getPits()));
+        assertThat(result.getTurn(), equalTo(GameEntity.NO_PLAYER));
+        assertThat(result.getMoveCount(), equalTo(0));
+        assertThat(result.getMoves().isEmpty(), equalTo(true));
+        ArgumentCaptor<GameUndoneEvent> event = ArgumentCaptor.forClass(GameUndoneEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getPitIndex(), equalTo(0));
+        assertThat(event.getValue().isCapture(), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("undoMove without any move should throw an IllegalGameMoveException")
+    public void undoMove_withoutMoves_shouldThrow_IllegalGameMoveException() {
+        final int gameId = 7;
+        when(gameRepository.findById(gameId)).thenReturn(Optional.of(new GameEntity()));
+
+        assertThrows(IllegalGameMoveException.class, () -> gameService.undoMove(gameId));
+        verify(gameRepository, never()).save(any(GameEntity.class));
+    }
+
+    @Test
+    @DisplayName("undoMove on a finished game should throw an IllegalGameMoveException")
+    public void undoMove_onFinishedGame_shouldThrow_IllegalGameMoveException() {
+        final int gameId = 7;
+        GameEntity game = new GameEntity();
+        game.updateStatus(new int[]{0, 0, 0, 0, 0, 0, 40, 0, 0, 0, 0, 0, 0, 32});
+        game.recordMove(5, false);
+        when(gameRepository.findById(gameId)).thenReturn(Optional.of(game));
+
+        assertThrows(IllegalGameMoveException.class, () -> gameService.undoMove(gameId));
         verify(gameRepository, never()).save(any(GameEntity.class));
     }
 }
@@ -193,6 +193,18 @@ class GameStatusCalculatorTest {
         assertThat(newPits[7], equalTo(1));
     }
 
+    @Test
+    @DisplayName("move with more stones than pits should add a stone to a pit each time it is passed")
+    public void move_lappingTheBoard_should_addToPassedPitsEachTime() throws IllegalGameMoveException {
+        when(gameEntity.getPits()).thenReturn(List.of(1, 1, 16, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 0));
+        int[] newPits = gameStatusCalculator.redistributeStones(gameEntity, 2);
+        assertThat(newPits, equalTo(new int[]{2, 2, 1, 3, 3, 3, 1, 2, 2, 2, 2, 2, 2, 0}));
+
+        when(gameEntity.getPits()).thenReturn(List.of(1, 1, 13, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 0));
+        newPits = gameStatusCalculator.redistributeStones(gameEntity, 2);
+        assertThat(newPits, equalTo(new int[]{2, 2, 3, 2, 2, 2, 1, 2, 2, 2, 0, 2, 2, 0}));
+    }
+
     @Test
     @DisplayName("move should collect all stones to kalah pits when endgame condition is met")
     public void move_with_endgameCondition_should_moveAllStonesToKalahPits() throws IllegalGameMoveException {
@@ -219,4 +231,90 @@ class GameStatusCalculatorTest {
         assertThat(newPits[7], equalTo(6));
     }
 
+    @Test
+    @DisplayName("move on the opponent's side should throw IllegalGameMoveException")
+    public void move_outOfTurn_shouldThrow_IllegalGameMoveException() {
+        when(gameEntity.getPits()).thenReturn(List.of(5, 5, 5, 0, 5, 5, 5, 0));
+        when(gameEntity.getTurn()).thenReturn(GameEntity.PLAYER_ONE);
+        assertThrows(IllegalGameMoveException.class, () -> gameStatusCalculator.redistributeStones(gameEntity, 4));
+
+        when(gameEntity.getTurn()).thenReturn(GameEntity.PLAYER_TWO);
+        assertThrows(IllegalGameMoveException.class, () -> gameStatusCalculator.redistributeStones(gameEntity, 0));
+    }
+
+    @Test
+    @DisplayName("move on a finished game should throw IllegalGameMoveException")
+    public void move_onFinishedGame_shouldThrow_IllegalGameMoveException() {
+        when(gameEntity.isFinished()).thenReturn(true);
+        assertThrows(IllegalGameMoveException.class, () -> gameStatusCalculator.redistributeStones(gameEntity, 0));
+    }
+
+    @Test
+    @DisplayName("next turn should stay with the player whose last stone landed in their own kalah pit")
+    public void calculateNextTurn_lastStoneInOwnKalah_shouldReturn_samePlayer() {
+        when(gameEntity.getPits()).thenReturn(List.of(2, 2, 2, 0, 2, 2, 2, 0));
+        assertThat(gameStatusCalculator.calculateNextTurn(gameEntity, 1, new int[]{2, 0, 3, 1, 2, 2, 2, 0}),
+                equalTo(GameEntity.PLAYER_ONE));
+        assertThat(gameStatusCalculator.calculateNextTurn(gameEntity, 5, new int[]{2, 2, 2, 0, 2, 0, 3, 1}),
+                equalTo(GameEntity.PLAYER_TWO));
+    }
+
+    @Test
+    @DisplayName("next turn should pass to the opponent when the last stone didn't land in the player's kalah pit")
+    public void calculateNextTurn_lastStoneElsewhere_shouldReturn_opponent() {
+        when(gameEntity.getPits()).thenReturn(List.of(2, 2, 2, 0, 2, 2, 2, 0));
+        assertThat(gameStatusCalculator.calculateNextTurn(gameEntity, 0, new int[]{0, 3, 3, 0, 2, 2, 2, 0}),
+                equalTo(GameEntity.PLAYER_TWO));
+        assertThat(gameStatusCalculator.calculateNextTurn(gameEntity, 4, new int[]{2, 2, 2, 0, 0, 3, 3, 0}),
+                equalTo(GameEntity.PLAYER_ONE));
+    }
+
+    @Test
+    @DisplayName("next turn should be nobody's once the game has ended")
+    public void calculateNextTurn_atEndGame_shouldReturn_noPlayer() {
+        when(gameEntity.getPits()).thenReturn(List.of(0, 0, 1, 5, 1, 2, 1, 2));
+        assertThat(gameStatusCalculator.calculateNextTurn(gameEntity, 2, new int[]{0, 0, 0, 6, 0, 0, 0, 6}),
+                equalTo(GameEntity.NO_PLAYER));
+    }
+
+    @Test
+    @DisplayName("legal moves should only include the non-empty pits of the player to move")
+    public void findLegalMoves_shouldReturn_playerPitsMask() {
+        when(gameEntity.getPits()).thenReturn(List.of(2, 0, 2, 1, 2, 2, 0, 3));
+        assertThat(gameStatusCalculator.findLegalMoves(gameEntity), equalTo(0b0110101));
+
+        when(gameEntity.getTurn()).thenReturn(GameEntity.PLAYER_ONE);
+        assertThat(gameStatusCalculator.findLegalMoves(gameEntity), equalTo(0b0000101));
+
+        when(gameEntity.getTurn()).thenReturn(GameEntity.PLAYER_TWO);
+        assertThat(gameStatusCalculator.findLegalMoves(gameEntity), equalTo(0b0110000));
+
+        when(gameEntity.isFinished()).thenReturn(true);
+        assertThat(gameStatusCalculator.findLegalMoves(gameEntity), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("capture should be detected when the last stone lands in an empty pit on the player's side")
+    public void isCapture_shouldDetect_captures() {
+        when(gameEntity.getPits()).thenReturn(List.of(2, 2, 0, 0, 2, 2, 2, 2));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 0), equalTo(true));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 1), equalTo(false));
+
+        when(gameEntity.getPits()).thenReturn(List.of(2, 2, 2, 0, 0, 2, 2, 2));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 2), equalTo(false));
+
+        when(gameEntity.getPits()).thenReturn(List.of(2, 2, 0, 0, 0, 2, 2, 2));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 0), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("capture should be detected after a lap of the board only when the last stone lands in the emptied pit")
+    public void isCapture_afterLappingTheBoard_shouldMatch_sowing() {
+        when(gameEntity.getPits()).thenReturn(List.of(1, 1, 13, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 0));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 2), equalTo(true));
+
+        when(gameEntity.getPits()).thenReturn(List.of(0, 1, 16, 1, 1, 1, 0, 1, 1, 1, 1, 1, 1, 0));
+        assertThat(gameStatusCalculator.isCapture(gameEntity, 2), equalTo(false));
+    }
+
 }
@@ -0,0 +1,68 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotentResponseCacheTest {
+
+    @Test
+    @DisplayName("execute should run the action once and replay its response for the same key")
+    public void execute_withSameKey_shouldRunActionOnce() throws Exception {
+        IdempotentResponseCache cache = new IdempotentResponseCache(10, Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+
+        ResponseEntity<Object> first = cache.execute("key", () -> new ResponseEntity<>(runs.incrementAndGet(), HttpStatus.OK));
+        ResponseEntity<Object> second = cache.execute("key", () -> new ResponseEntity<>(runs.incrementAndGet(), HttpStatus.OK));
+
+        assertThat(runs.get(), equalTo(1));
+        assertThat(second.getBody(), equalTo(first.getBody()));
+        assertThat(second.getHeaders().getFirst(IdempotentResponseCache.REPLAYED_HEADER), equalTo("true"));
+    }
+
+    @Test
+    @DisplayName("execute should not remember failed actions")
+    public void execute_withFailedAction_shouldRunAgain() throws Exception {
+        IdempotentResponseCache cache = new IdempotentResponseCache(10, Duration.ofMinutes(1));
+
+        assertThrows(IllegalGameMoveException.class, () -> cache.execute("key", () -> {
+            throw new IllegalGameMoveException("Cannot move stones from an empty pit");
+        }));
+        ResponseEntity<Object> response = cache.execute("key", () -> new ResponseEntity<>("moved", HttpStatus.OK));
+
+        assertThat(response.getBody(), equalTo("moved"));
+        assertThat(response.getHeaders().containsKey(IdempotentResponseCache.REPLAYED_HEADER), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("execute should run the action again once the key has expired")
+    public void execute_withExpiredKey_shouldRunAgain() throws Exception {
+        IdempotentResponseCache cache = new IdempotentResponseCache(10, Duration.ZERO);
+        AtomicInteger runs = new AtomicInteger();
+
+        cache.execute("key", () -> new ResponseEntity<>(runs.incrementAndGet(), HttpStatus.OK));
+        cache.execute("key", () -> new ResponseEntity<>(runs.incrementAndGet(), HttpStatus.OK));
+
+        assertThat(runs.get(), equalTo(2));
+    }
+
+    @Test
+    @DisplayName("execute should keep the number of remembered keys bounded")
+    public void execute_shouldStay_bounded() throws Exception {
+        IdempotentResponseCache cache = new IdempotentResponseCache(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            cache.execute("key-" + i, () -> new ResponseEntity<>(HttpStatus.OK));
+        }
+        assertThat(cache.size(), lessThanOrEqualTo(11));
+    }
+}
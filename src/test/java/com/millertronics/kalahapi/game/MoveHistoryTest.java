@@ -0,0 +1,69 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameStatusViolationException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoveHistoryTest {
+
+    @Test
+    @DisplayName("moves should be encoded in one byte each and decoded in order")
+    public void append_and_decode_shouldRoundTrip() {
+        byte[] history = MoveHistory.append(null, 0, false, false);
+        history = MoveHistory.append(history, 12, true, false);
+        history = MoveHistory.append(history, 5, false, true);
+        assertThat(history.length, equalTo(3));
+
+        List<MoveHistory.Move> moves = MoveHistory.decode(history);
+        assertThat(moves.size(), equalTo(3));
+        assertThat(moves.get(0).getPitIndex(), equalTo(0));
+        assertThat(moves.get(1).getPitIndex(), equalTo(12));
+        assertThat(moves.get(1).isCapture(), equalTo(true));
+        assertThat(moves.get(1).isEndGame(), equalTo(false));
+        assertThat(moves.get(2).getPitIndex(), equalTo(5));
+        assertThat(moves.get(2).isCapture(), equalTo(false));
+        assertThat(moves.get(2).isEndGame(), equalTo(true));
+    }
+
+    @Test
+    @DisplayName("pit indexes too large for one byte should be encoded as multi-byte varints")
+    public void append_withLargePitIndex_shouldUse_multipleBytes() {
+        byte[] history = MoveHistory.append(null, 3, false, false);
+        history = MoveHistory.append(history, 1000, true, true);
+        assertThat(history.length, equalTo(3));
+
+        List<MoveHistory.Move> moves = MoveHistory.decode(history);
+        assertThat(moves.get(1).getPitIndex(), equalTo(1000));
+        assertThat(moves.get(1).isCapture(), equalTo(true));
+        assertThat(moves.get(1).isEndGame(), equalTo(true));
+    }
+
+    @Test
+    @DisplayName("removeLast should drop only the last move")
+    public void removeLast_should_dropLastMove() {
+        byte[] history = MoveHistory.append(null, 1000, false, false);
+        history = MoveHistory.append(history, 1000, false, false);
+        history = MoveHistory.append(history, 4, false, false);
+
+        history = MoveHistory.removeLast(history);
+        assertThat(MoveHistory.decode(history).size(), equalTo(2));
+        history = MoveHistory.removeLast(history);
+        assertThat(MoveHistory.decode(history).size(), equalTo(1));
+        assertThat(MoveHistory.decode(history).get(0).getPitIndex(), equalTo(1000));
+        assertThat(MoveHistory.removeLast(history).length, equalTo(0));
+    }
+
+    @Test
+    @DisplayName("decode of a truncated history should throw a GameStatusViolationException")
+    public void decode_withTruncatedHistory_shouldThrow_GameStatusViolationException() {
+        byte[] history = MoveHistory.append(null, 1000, false, false);
+        byte[] truncated = new byte[]{history[0]};
+        assertThrows(GameStatusViolationException.class, () -> MoveHistory.decode(truncated));
+    }
+}
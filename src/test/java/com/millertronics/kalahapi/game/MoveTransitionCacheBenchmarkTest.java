@@ -0,0 +1,107 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Replays move traces of random games through the MoveTransitionCache and through GameStatusCalculator alone,
+ * reporting the cost per move and the cache hit rate. Players favour a few openings, as real players do,
+ * so the early moves of many games coincide. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class MoveTransitionCacheBenchmarkTest {
+
+    private static final int GAMES = 20_000;
+    private static final int ROUNDS = 5;
+
+    private final GameStatusCalculator gameStatusCalculator = new GameStatusCalculator();
+
+    @Test
+    @DisplayName("cost per move with and without the transition cache")
+    public void replayTraces() throws IllegalGameMoveException {
+        List<int[]> traces = createTraces(new Random(7));
+        final long moves = traces.stream().mapToLong(trace -> trace.length).sum();
+
+        long calculatorNanos = Long.MAX_VALUE;
+        long cacheNanos = Long.MAX_VALUE;
+        MoveTransitionCache cache = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            replayWithCalculator(traces);
+            calculatorNanos = Math.min(calculatorNanos, System.nanoTime() - start);
+
+            cache = new MoveTransitionCache(gameStatusCalculator, 100_000);
+            start = System.nanoTime();
+            replayWithCache(traces, cache);
+            cacheNanos = Math.min(cacheNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("%d moves in %d games: calculator %d ns/move, cache %d ns/move, %s%n",
+                moves, GAMES, calculatorNanos / moves, cacheNanos / moves, cache.getMetrics());
+        assertThat((Long) cache.getMetrics().get("hits"), greaterThan(0L));
+    }
+
+    private void replayWithCalculator(final List<int[]> traces) throws IllegalGameMoveException {
+        for (int[] trace : traces) {
+            int[] pits = GameEntity.createInitialPits();
+            for (int pitIndex : trace) {
+                int[] newPits = gameStatusCalculator.redistributeStones(pits, pitIndex);
+                gameStatusCalculator.calculateNextTurn(pits[pitIndex], pitIndex, newPits);
+                gameStatusCalculator.isCapture(pits, pitIndex);
+                pits = newPits;
+            }
+        }
+    }
+
+    private static void replayWithCache(final List<int[]> traces, final MoveTransitionCache cache)
+            throws IllegalGameMoveException {
+        for (int[] trace : traces) {
+            int[] pits = GameEntity.createInitialPits();
+            long hash = MoveTransitionCache.hash(pits);
+            for (int pitIndex : trace) {
+                MoveTransitionCache.Transition transition = cache.apply(pits, hash, pitIndex);
+                pits = transition.getPits();
+                hash = transition.getHash();
+            }
+        }
+    }
+
+    /**
+     * Plays games to the end, each move picked from the player's legal moves with a bias towards the lowest pits
+     */
+    private List<int[]> createTraces(final Random random) throws IllegalGameMoveException {
+        List<int[]> traces = new ArrayList<>(GAMES);
+        for (int game = 0; game < GAMES; game++) {
+            List<Integer> trace = new ArrayList<>();
+            int[] pits = GameEntity.createInitialPits();
+            int turn = GameEntity.NO_PLAYER;
+            while (!gameStatusCalculator.isEndGame(pits)) {
+                List<Integer> legal = new ArrayList<>();
+                for (int i = 0; i < pits.length - 1; i++) {
+                    final boolean playersPit = turn == GameEntity.NO_PLAYER
+                            || turn == gameStatusCalculator.findPlayer(i, pits.length);
+                    if (i != pits.length / 2 - 1 && playersPit && pits[i] > 0) {
+                        legal.add(i);
+                    }
+                }
+                final int pitIndex = legal.get(Math.min(legal.size() - 1,
+                        (int) Math.abs(random.nextGaussian() * legal.size() / 3)));
+                int[] newPits = gameStatusCalculator.redistributeStones(pits, pitIndex);
+                turn = gameStatusCalculator.calculateNextTurn(pits[pitIndex], pitIndex, newPits);
+                pits = newPits;
+                trace.add(pitIndex);
+            }
+            traces.add(trace.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return traces;
+    }
+}
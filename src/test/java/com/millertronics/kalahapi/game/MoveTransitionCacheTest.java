@@ -0,0 +1,100 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoveTransitionCacheTest {
+
+    private final GameStatusCalculator gameStatusCalculator = new GameStatusCalculator();
+
+    @Test
+    @DisplayName("apply should return the cached result for the same move from the same board")
+    public void apply_withRepeatedMove_shouldHit() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 100);
+
+        MoveTransitionCache.Transition first = cache.apply(new GameEntity(), 0);
+        MoveTransitionCache.Transition second = cache.apply(new GameEntity(), 0);
+
+        assertThat(second, sameInstance(first));
+        assertThat(first.getPits(), equalTo(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0}));
+        assertThat(first.getNextTurn(), equalTo(GameEntity.PLAYER_ONE));
+        assertThat(cache.getMetrics().get("hits"), equalTo(1L));
+        assertThat(cache.getMetrics().get("misses"), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("apply should not reuse the result of another pit or board")
+    public void apply_withDifferentMove_shouldMiss() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 100);
+        final int[] pits = GameEntity.createInitialPits();
+
+        MoveTransitionCache.Transition first = cache.apply(pits, MoveTransitionCache.hash(pits), 0);
+        MoveTransitionCache.Transition other = cache.apply(pits, MoveTransitionCache.hash(pits), 1);
+
+        assertThat(other, not(sameInstance(first)));
+        assertThat(other.getPits(), equalTo(gameStatusCalculator.redistributeStones(pits, 1)));
+        assertThat(cache.getMetrics().get("hits"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("the hash after a move should equal the hash computed from the resulting board")
+    public void apply_shouldUpdate_hashIncrementally() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 100);
+        int[] pits = GameEntity.createInitialPits();
+        long hash = MoveTransitionCache.hash(pits);
+        for (int pitIndex : new int[]{0, 8, 1, 12, 3}) {
+            MoveTransitionCache.Transition transition = cache.apply(pits, hash, pitIndex);
+            pits = transition.getPits();
+            hash = transition.getHash();
+            assertThat(transition.isCacheable(), equalTo(true));
+            assertThat(hash, equalTo(MoveTransitionCache.hash(pits)));
+        }
+    }
+
+    @Test
+    @DisplayName("apply should still check that the game is in progress and it is the player's turn")
+    public void apply_outOfTurn_shouldThrow_IllegalGameMoveException() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 100);
+        cache.apply(new GameEntity(), 8);
+
+        GameEntity game = new GameEntity();
+        game.setTurn(GameEntity.PLAYER_ONE);
+        assertThrows(IllegalGameMoveException.class, () -> cache.apply(game, 8));
+    }
+
+    @Test
+    @DisplayName("apply should compute but not cache boards it cannot hash")
+    public void apply_withUncacheableBoard_shouldNotCache() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 100);
+        final int[] pits = {6, 6, 6, 0, 6, 6, 6, 0};
+        assertThat(MoveTransitionCache.isCacheable(pits), equalTo(false));
+        assertThrows(IllegalArgumentException.class, () -> MoveTransitionCache.hash(pits));
+
+        MoveTransitionCache.Transition transition = cache.apply(pits, 0, 0);
+        cache.apply(pits, 0, 0);
+
+        assertThat(transition.isCacheable(), equalTo(false));
+        assertThat(cache.getMetrics().get("hits"), equalTo(0L));
+        assertThat(cache.getMetrics().get("size"), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("apply should keep the number of cached transitions bounded")
+    public void apply_shouldStay_bounded() throws IllegalGameMoveException {
+        MoveTransitionCache cache = new MoveTransitionCache(gameStatusCalculator, 10);
+        for (int stones = 1; stones <= 50; stones++) {
+            int[] pits = GameEntity.createInitialPits();
+            pits[0] = stones;
+            cache.apply(pits, MoveTransitionCache.hash(pits), 0);
+        }
+        assertThat((Integer) cache.getMetrics().get("size"), lessThanOrEqualTo(11));
+    }
+}
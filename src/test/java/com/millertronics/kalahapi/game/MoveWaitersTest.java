@@ -0,0 +1,104 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MoveWaitersTest {
+
+    private static final int GAME_ID = 7;
+    private static final long WAIT = 30;
+
+    @Mock
+    private GameReadModel gameReadModel;
+
+    private MoveWaiters moveWaiters;
+
+    @BeforeEach
+    public void setup() {
+        moveWaiters = new MoveWaiters(gameReadModel, WAIT);
+    }
+
+    @Test
+    @DisplayName("await should answer at once when the game is already past the version")
+    public void await_withLaterVersion_shouldAnswer_atOnce() throws GameNotFoundException {
+        when(gameReadModel.getView(GAME_ID)).thenReturn(view(3));
+
+        DeferredResult<ResponseEntity<Object>> result = moveWaiters.await(GAME_ID, 2, WAIT, MoveWaitersTest::respond);
+
+        assertThat(result.hasResult(), equalTo(true));
+        assertThat(((ResponseEntity<?>) result.getResult()).getBody(), equalTo(3L));
+        assertThat(moveWaiters.getMetrics().get("waiting"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("await should hold the request until a later version is projected")
+    public void await_shouldAnswer_onlyOnLaterVersion() throws GameNotFoundException {
+        when(gameReadModel.getView(GAME_ID)).thenReturn(view(2));
+
+        DeferredResult<ResponseEntity<Object>> result = moveWaiters.await(GAME_ID, 2, WAIT, MoveWaitersTest::respond);
+        assertThat(result.hasResult(), equalTo(false));
+        assertThat(moveWaiters.getMetrics().get("waiting"), equalTo(1L));
+
+        moveWaiters.onGameProjected(new GameProjectedEvent(view(2)));
+        assertThat(result.hasResult(), equalTo(false));
+
+        moveWaiters.onGameProjected(new GameProjectedEvent(view(3)));
+        assertThat(result.hasResult(), equalTo(true));
+        assertThat(((ResponseEntity<?>) result.getResult()).getBody(), equalTo(3L));
+
+        Map<String, Long> metrics = moveWaiters.getMetrics();
+        assertThat(metrics.get("waiting"), equalTo(0L));
+        assertThat(metrics.get("notified"), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("await should answer a version projected while the waiter was being added")
+    public void await_withVersionProjectedWhileAdding_shouldAnswer() throws GameNotFoundException {
+        when(gameReadModel.getView(GAME_ID)).thenReturn(view(2), view(3));
+
+        DeferredResult<ResponseEntity<Object>> result = moveWaiters.await(GAME_ID, 2, WAIT, MoveWaitersTest::respond);
+
+        assertThat(result.hasResult(), equalTo(true));
+        assertThat(((ResponseEntity<?>) result.getResult()).getBody(), equalTo(3L));
+        assertThat(moveWaiters.getMetrics().get("waiting"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("eviction of the game should answer its waiters with a GameNotFoundException")
+    public void onGamesEvicted_shouldAnswer_withGameNotFound() throws GameNotFoundException {
+        when(gameReadModel.getView(GAME_ID)).thenReturn(view(2));
+        DeferredResult<ResponseEntity<Object>> result = moveWaiters.await(GAME_ID, 2, WAIT, MoveWaitersTest::respond);
+
+        moveWaiters.onGamesEvicted(new GamesEvictedEvent(List.of(GAME_ID)));
+
+        assertThat(result.getResult(), instanceOf(GameNotFoundException.class));
+        assertThat(moveWaiters.getMetrics().get("waiting"), equalTo(0L));
+    }
+
+    private static ResponseEntity<Object> respond(final GameReadModel.GameView view) {
+        return new ResponseEntity<>(view.getVersion(), HttpStatus.OK);
+    }
+
+    private static GameReadModel.GameView view(final long version) {
+        return new GameReadModel.GameView(GAME_ID, version, GameEntity.createInitialPits(),
+                GameEntity.NO_PLAYER, false, 0, 0, 0, null, false, Instant.now(), null);
+    }
+}
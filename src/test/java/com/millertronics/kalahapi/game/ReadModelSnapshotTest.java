@@ -0,0 +1,156 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.temporal.ChronoUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadModelSnapshotTest {
+
+    private static final GameTableState TABLE_STATE = new GameTableState(2L, 3L, 2);
+
+    @Mock
+    private GameReadCoalescer gameReadCoalescer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GameRepository gameRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private GameReadModel gameReadModel;
+    private GameEntity openedGame;
+
+    @BeforeEach
+    public void setup() {
+        gameReadModel = new GameReadModel(new GameStatusCalculator(), gameReadCoalescer, eventPublisher, Runnable::run);
+        openedGame = game(1);
+        openedGame.updateStatus(new int[]{0, 7, 7, 7, 7, 7, 1, 6, 6, 6, 6, 6, 6, 0});
+        openedGame.setTurn(GameEntity.PLAYER_ONE);
+        openedGame.recordMove(0, false);
+        openedGame.touch();
+        ReflectionTestUtils.setField(openedGame, "version", openedGame.getVersion() + 1);
+        when(gameRepository.streamByIdRange(0, Integer.MAX_VALUE)).thenReturn(Stream.of(openedGame, game(2)));
+    }
+
+    @Test
+    @DisplayName("a snapshot should restore every game in the table while the games are unchanged")
+    public void restore_withUnchangedGames_shouldRestore_views() throws GameNotFoundException {
+        when(gameRepository.findTableState()).thenReturn(TABLE_STATE);
+        final Path file = dir.resolve("snapshot");
+        assertThat(snapshot().write(file), equalTo(2));
+        assertThat(gameReadModel.size(), equalTo(0));
+        verify(entityManager).detach(openedGame);
+
+        GameReadModel restored = new GameReadModel(new GameStatusCalculator(), gameReadCoalescer, eventPublisher, Runnable::run);
+        assertThat(reader(restored).restore(file), equalTo(2));
+
+        GameReadModel.GameView opened = restored.getView(1);
+        GameReadModel.GameView original = gameReadModel.project(openedGame);
+        assertThat(opened.getPits(), equalTo(original.getPits()));
+        assertThat(opened.getVersion(), equalTo(original.getVersion()));
+        assertThat(opened.getTurn(), equalTo(GameEntity.PLAYER_ONE));
+        assertThat(opened.getLegalMoves(), equalTo(original.getLegalMoves()));
+        assertThat(opened.getPlayerOneScore(), equalTo(1));
+        assertThat(opened.getLastMovePit(), equalTo(1));
+        assertThat(opened.getUpdatedAt(), equalTo(original.getUpdatedAt().truncatedTo(ChronoUnit.MILLIS)));
+        assertThat(opened.getMoves().size(), equalTo(1));
+        assertThat(opened.getMoves().get(0).getPitIndex(), equalTo(0));
+        assertThat(restored.getView(2).getLastMovePit(), nullValue());
+        assertThat(restored.getView(2).getMoves().size(), equalTo(0));
+        verify(gameReadCoalescer, never()).findGame(anyInt());
+    }
+
+    @Test
+    @DisplayName("a snapshot should be ignored once a game has changed since it was written")
+    public void restore_withChangedGames_shouldBeIgnored() {
+        when(gameRepository.findTableState()).thenReturn(TABLE_STATE, TABLE_STATE, new GameTableState(2L, 4L, 2));
+        final Path file = dir.resolve("snapshot");
+        snapshot().write(file);
+
+        GameReadModel restored = new GameReadModel(new GameStatusCalculator(), gameReadCoalescer, eventPublisher, Runnable::run);
+        assertThat(reader(restored).restore(file), equalTo(0));
+        assertThat(restored.size(), equalTo(0));
+    }
+
+    @Test
+    @DisplayName("a snapshot should not be written when a game changes while the games are streamed")
+    public void write_withGamesChangedWhileStreaming_shouldNotWrite() {
+        when(gameRepository.findTableState()).thenReturn(TABLE_STATE, new GameTableState(2L, 4L, 2));
+        final Path file = dir.resolve("snapshot");
+
+        assertThat(snapshot().write(file), equalTo(0));
+        assertThat(Files.exists(file), equalTo(false));
+        assertThat(Files.exists(dir.resolve("snapshot.tmp")), equalTo(false));
+    }
+
+    @Test
+    @DisplayName("a corrupt or truncated snapshot should be ignored")
+    public void restore_withCorruptSnapshot_shouldBeIgnored() throws IOException {
+        when(gameRepository.findTableState()).thenReturn(TABLE_STATE);
+        final Path file = dir.resolve("snapshot");
+        snapshot().write(file);
+        GameReadModel restored = new GameReadModel(new GameStatusCalculator(), gameReadCoalescer, eventPublisher, Runnable::run);
+        ReadModelSnapshot reader = reader(restored);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[ReadModelSnapshot.HEADER_SIZE + 20] ^= 1;
+        Files.write(file, bytes);
+        assertThat(reader.restore(file), equalTo(0));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(ReadModelSnapshot.HEADER_SIZE + ReadModelSnapshot.RECORD_SIZE);
+        }
+        assertThat(reader.restore(file), equalTo(0));
+        assertThat(restored.size(), equalTo(0));
+    }
+
+    private ReadModelSnapshot snapshot() {
+        return reader(gameReadModel);
+    }
+
+    private ReadModelSnapshot reader(final GameReadModel readModel) {
+        return new ReadModelSnapshot(readModel, gameRepository, entityManager, transactionManager, "");
+    }
+
+    private static GameEntity game(final int id) {
+        GameEntity game = new GameEntity();
+        game.setId(id);
+        game.touch();
+        return game;
+    }
+}
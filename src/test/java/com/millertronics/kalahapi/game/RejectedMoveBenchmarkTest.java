@@ -0,0 +1,88 @@
+package com.millertronics.kalahapi.game;
+
+import com.millertronics.kalahapi.exceptions.GameErrorCode;
+import com.millertronics.kalahapi.exceptions.IllegalGameMoveException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Measures the cost of rejecting moves. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "kalah.rate-limit.enabled=false")
+class RejectedMoveBenchmarkTest {
+
+    private static final int ITERATIONS = 200_000;
+    private static final int REQUESTS = 5_000;
+    private static final int STACK_DEPTH = 80;
+
+    @LocalServerPort
+    private int port;
+
+    private final TestRestTemplate restTemplate = new TestRestTemplate();
+
+    @Test
+    @DisplayName("stackless exceptions should be cheaper to create than exceptions capturing a stack trace")
+    public void exceptionCreation() {
+        final long stackTraceNanos = time(() -> atDepth(STACK_DEPTH, () -> new Exception("Cannot move stones from an empty pit")));
+        final long stacklessNanos = time(() -> atDepth(STACK_DEPTH,
+                () -> new IllegalGameMoveException(GameErrorCode.EMPTY_PIT, "Cannot move stones from an empty pit")));
+
+        System.out.printf("exception with stack trace: %d ns/op, stackless exception: %d ns/op%n",
+                stackTraceNanos / ITERATIONS, stacklessNanos / ITERATIONS);
+        assertThat(stacklessNanos, lessThan(stackTraceNanos));
+    }
+
+    @Test
+    @DisplayName("illegal moves should be rejected over HTTP without loading the game")
+    public void rejectionThroughput() {
+        final String url = String.format("http://localhost:%d/games/%d/pits/%d", port, 1, GameEntity.PIT_SIZE);
+        for (int i = 0; i < REQUESTS / 10; i++) {
+            restTemplate.exchange(url, HttpMethod.PUT, null, String.class);
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.PUT, null, String.class);
+            assertThat(response.getStatusCode(), equalTo(HttpStatus.BAD_REQUEST));
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.printf("rejected %d moves: %d us/request, %.0f requests/s%n",
+                REQUESTS, elapsed / REQUESTS / 1_000, REQUESTS / (elapsed / 1e9));
+    }
+
+    private static long time(final Supplier<Object> operation) {
+        Object sink = null;
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            sink = operation.get();
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = operation.get();
+        }
+        final long elapsed = System.nanoTime() - start;
+        assertThat(sink == null, equalTo(false));
+        return elapsed;
+    }
+
+    /**
+     * Creates the object below the given number of extra stack frames, as an exception thrown deep in a request would be
+     */
+    private static Object atDepth(final int depth, final Supplier<Object> supplier) {
+        return depth == 0 ? supplier.get() : atDepth(depth - 1, supplier);
+    }
+}
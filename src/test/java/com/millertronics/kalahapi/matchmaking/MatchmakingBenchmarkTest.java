@@ -0,0 +1,57 @@
+package com.millertronics.kalahapi.matchmaking;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Measures how many pairs of players are given a new game per second, including creating the game.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "kalah.janitor.enabled=false")
+class MatchmakingBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    @Autowired
+    private MatchmakingService matchmakingService;
+
+    @Test
+    @DisplayName("pairings per second with players joining from many threads")
+    public void pairingThroughput() throws InterruptedException {
+        join(WARM_UP);
+        final long before = matchmakingService.getMetrics().get("pairings");
+        join(MEASUREMENT);
+        final long pairings = matchmakingService.getMetrics().get("pairings") - before;
+
+        System.out.printf("%d threads: %.0f pairings/s%n", THREADS, pairings / (double) MEASUREMENT.toSeconds());
+        assertThat(pairings, greaterThan(0L));
+    }
+
+    private void join(final Duration duration) throws InterruptedException {
+        final long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    matchmakingService.join("http://localhost/games", TimeUnit.SECONDS.toMillis(30));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,233 @@
+package com.millertronics.kalahapi.matchmaking;
+
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class MatchmakingServiceTest {
+
+    private static final String GAMES_URL = "http://localhost/games";
+    private static final long TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    @Mock
+    private GameService gameService;
+
+    @Mock
+    private ShardRouter shardRouter;
+
+    private final AtomicInteger gameIds = new AtomicInteger();
+
+    private MatchmakingService matchmakingService;
+
+    @BeforeEach
+    public void setup() {
+        lenient().when(gameService.createGame()).thenAnswer(invocation -> {
+            GameEntity game = new GameEntity();
+            game.setId(gameIds.incrementAndGet());
+            return game;
+        });
+        lenient().when(shardRouter.toPublicId(anyInt())).thenAnswer(invocation -> invocation.getArgument(0));
+        matchmakingService = new MatchmakingService(gameService, shardRouter, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("join should pair two waiting players into the same new game on opposite sides")
+    public void join_twice_shouldPair_players() {
+        DeferredResult<ResponseEntity<Object>> first = matchmakingService.join(GAMES_URL, TIMEOUT);
+        assertThat(first.hasResult(), equalTo(false));
+
+        DeferredResult<ResponseEntity<Object>> second = matchmakingService.join(GAMES_URL, TIMEOUT);
+
+        Map<?, ?> firstBody = body(first);
+        Map<?, ?> secondBody = body(second);
+        assertThat(firstBody.get("id"), equalTo("1"));
+        assertThat(secondBody.get("id"), equalTo("1"));
+        assertThat(firstBody.get("url"), equalTo(GAMES_URL + "/1"));
+        assertThat(firstBody.get("player"), equalTo(GameEntity.PLAYER_ONE));
+        assertThat(secondBody.get("player"), equalTo(GameEntity.PLAYER_TWO));
+        assertThat(matchmakingService.getMetrics().get("pairings"), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("join should leave an odd player waiting for the next one")
+    public void join_withOddPlayer_shouldWait() {
+        matchmakingService.join(GAMES_URL, TIMEOUT);
+        matchmakingService.join(GAMES_URL, TIMEOUT);
+        DeferredResult<ResponseEntity<Object>> third = matchmakingService.join(GAMES_URL, TIMEOUT);
+        assertThat(third.hasResult(), equalTo(false));
+
+        DeferredResult<ResponseEntity<Object>> fourth = matchmakingService.join(GAMES_URL, TIMEOUT);
+        assertThat(body(third).get("id"), equalTo("2"));
+        assertThat(body(fourth).get("id"), equalTo("2"));
+    }
+
+    @Test
+    @DisplayName("a player whose wait ends before their game is created should get 204 at once and requeue the opponent")
+    public void timeout_beforeGameCreated_shouldCancel_pairing() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        matchmakingService = new MatchmakingService(gameService, shardRouter, queued::add);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        WebAsyncManager asyncManager = startAsync(request, matchmakingService.join(GAMES_URL, TIMEOUT));
+        DeferredResult<ResponseEntity<Object>> second = matchmakingService.join(GAMES_URL, TIMEOUT);
+        assertThat(queued.size(), equalTo(1));
+
+        timeout(request);
+        ResponseEntity<?> response = (ResponseEntity<?>) asyncManager.getConcurrentResult();
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NO_CONTENT));
+
+        queued.remove(0).run();
+        verify(gameService, never()).createGame();
+        assertThat(second.hasResult(), equalTo(false));
+
+        DeferredResult<ResponseEntity<Object>> third = matchmakingService.join(GAMES_URL, TIMEOUT);
+        queued.remove(0).run();
+        assertThat(body(second).get("id"), equalTo("1"));
+        assertThat(body(third).get("id"), equalTo("1"));
+        assertThat(matchmakingService.getMetrics().get("timeouts"), equalTo(1L));
+    }
+
+    @Test
+    @DisplayName("a player whose wait ends while their game is being created should not wait for it nor orphan it")
+    public void timeout_whileCreatingGame_shouldNotBlock() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch created = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            creating.countDown();
+            created.await(30, TimeUnit.SECONDS);
+            GameEntity game = new GameEntity();
+            game.setId(gameIds.incrementAndGet());
+            return game;
+        }).when(gameService).createGame();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            matchmakingService = new MatchmakingService(gameService, shardRouter, executor);
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            WebAsyncManager asyncManager = startAsync(request, matchmakingService.join(GAMES_URL, TIMEOUT));
+            DeferredResult<ResponseEntity<Object>> second = matchmakingService.join(GAMES_URL, TIMEOUT);
+            assertThat(creating.await(30, TimeUnit.SECONDS), equalTo(true));
+
+            timeout(request);
+            ResponseEntity<?> response = (ResponseEntity<?>) asyncManager.getConcurrentResult();
+            assertThat(response.getStatusCode(), equalTo(HttpStatus.NO_CONTENT));
+
+            created.countDown();
+            executor.submit(() -> null).get(30, TimeUnit.SECONDS);
+            assertThat(second.hasResult(), equalTo(false));
+            assertThat(matchmakingService.getMetrics().get("pairings"), equalTo(0L));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("a player whose wait ends after their game was answered should keep the game")
+    public void timeout_afterGameAnswered_shouldKeep_game() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        WebAsyncManager asyncManager = startAsync(request, matchmakingService.join(GAMES_URL, TIMEOUT));
+        DeferredResult<ResponseEntity<Object>> second = matchmakingService.join(GAMES_URL, TIMEOUT);
+
+        timeout(request);
+        ResponseEntity<?> response = (ResponseEntity<?>) asyncManager.getConcurrentResult();
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.CREATED));
+        assertThat(body(second).get("id"), equalTo("1"));
+        assertThat(matchmakingService.getMetrics().get("timeouts"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("concurrent joins should pair every player exactly once")
+    public void join_concurrently_shouldPair_everyPlayer() throws Exception {
+        final int threads = 8;
+        final int joinsPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<DeferredResult<ResponseEntity<Object>>>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    List<DeferredResult<ResponseEntity<Object>>> results = new ArrayList<>();
+                    for (int i = 0; i < joinsPerThread; i++) {
+                        results.add(matchmakingService.join(GAMES_URL, TIMEOUT));
+                    }
+                    return results;
+                }));
+            }
+            Map<Object, Integer> playersByGame = new HashMap<>();
+            for (Future<List<DeferredResult<ResponseEntity<Object>>>> future : futures) {
+                for (DeferredResult<ResponseEntity<Object>> result : future.get(30, TimeUnit.SECONDS)) {
+                    assertThat(result.hasResult(), equalTo(true));
+                    playersByGame.merge(body(result).get("id"), 1, Integer::sum);
+                }
+            }
+            assertThat(playersByGame.size(), equalTo(threads * joinsPerThread / 2));
+            assertThat(playersByGame.values().stream().allMatch(players -> players == 2), equalTo(true));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Times out the async request as the servlet container would
+     */
+    private static void timeout(final MockHttpServletRequest request) throws IOException {
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+    }
+
+    /**
+     * Hands a result to Spring MVC as a controller returning it would, so that its timeout can be triggered
+     */
+    private static WebAsyncManager startAsync(final MockHttpServletRequest request,
+                                              final DeferredResult<ResponseEntity<Object>> result) throws Exception {
+        request.setAsyncSupported(true);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(request);
+        asyncManager.setAsyncWebRequest(new StandardServletAsyncWebRequest(request, new MockHttpServletResponse()));
+        asyncManager.startDeferredResultProcessing(result);
+        return asyncManager;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<?, ?> body(final DeferredResult<ResponseEntity<Object>> result) {
+        ResponseEntity<Object> response = (ResponseEntity<Object>) result.getResult();
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.CREATED));
+        return (Map<?, ?>) response.getBody();
+    }
+}
@@ -0,0 +1,51 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import com.millertronics.kalahapi.cluster.ShardRouter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class MoveRateLimitFilterTest {
+
+    private static final List<String> NODES = List.of("http://node-a:8080", "http://node-b:8080");
+
+    private final ShardRouter shardRouter = new ShardRouter(true, NODES.get(0), NODES, 256, 64, 2);
+    private final MoveRateLimitFilter moveRateLimitFilter = new MoveRateLimitFilter(
+            new MoveRateLimiter(() -> TimeUnit.HOURS.toNanos(1), 1, 2, 100), shardRouter, new ClientIdentifier(""));
+
+    @Test
+    @DisplayName("moves on a 10-digit game ID should be rate limited")
+    public void tenDigitGameId_shouldBe_rateLimited() throws ServletException, IOException {
+        final int gameId = shardRouter.toPublicId(8_000_000);
+        assertThat(move(gameId), equalTo(HttpStatus.OK.value()));
+        assertThat(move(gameId), equalTo(HttpStatus.OK.value()));
+        assertThat(move(gameId), equalTo(HttpStatus.TOO_MANY_REQUESTS.value()));
+    }
+
+    @Test
+    @DisplayName("aliases of a game ID should share the bucket of the game")
+    public void aliasGameIds_shouldShare_bucket() throws ServletException, IOException {
+        final int gameId = shardRouter.toPublicId(42);
+        assertThat(move(42 * 256), equalTo(HttpStatus.OK.value()));
+        assertThat(move(42 * 256 + 255), equalTo(HttpStatus.OK.value()));
+        assertThat(move(gameId), equalTo(HttpStatus.TOO_MANY_REQUESTS.value()));
+    }
+
+    private int move(final int gameId) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/games/" + gameId + "/pits/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        moveRateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,72 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Measures the cost of the rate limiter under concurrent requests from many clients. Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class MoveRateLimiterBenchmarkTest {
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int OPERATIONS_PER_THREAD = 2_000_000;
+    private static final int KEYS = 50_000;
+
+    @Test
+    @DisplayName("taking tokens should cost well under a microsecond per request")
+    public void tryAcquireThroughput() throws Exception {
+        MoveRateLimiter limiter = new MoveRateLimiter(20, 40, KEYS);
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "10.0." + (i / 256) + "." + (i % 256) + "/" + i;
+        }
+        run(limiter, keys, OPERATIONS_PER_THREAD / 10);
+
+        final long start = System.nanoTime();
+        final long allowed = run(limiter, keys, OPERATIONS_PER_THREAD);
+        final long elapsed = System.nanoTime() - start;
+
+        final long operations = (long) THREADS * OPERATIONS_PER_THREAD;
+        System.out.printf("%d threads: %d ns/request, %.0f requests/s, %d allowed%n",
+                THREADS, elapsed * THREADS / operations, operations / (elapsed / 1e9), allowed);
+        assertThat(allowed, greaterThan(0L));
+    }
+
+    private static long run(final MoveRateLimiter limiter, final String[] keys, final int operations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    long allowed = 0;
+                    for (int i = 0; i < operations; i++) {
+                        if (limiter.tryAcquire(keys[random.nextInt(keys.length)]) == 0) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            long allowed = 0;
+            for (Future<Long> result : results) {
+                allowed += result.get();
+            }
+            return allowed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.millertronics.kalahapi.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class MoveRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    @DisplayName("tryAcquire should allow a burst, then reject until a token is refilled")
+    public void tryAcquire_overBurst_shouldReject_untilRefilled() {
+        MoveRateLimiter limiter = new MoveRateLimiter(now::get, 10, 3, 100);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("client/1"), equalTo(0L));
+        }
+
+        final long wait = limiter.tryAcquire("client/1");
+        assertThat(wait, greaterThan(0L));
+        assertThat(wait, lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100)));
+
+        now.addAndGet(wait);
+        assertThat(limiter.tryAcquire("client/1"), equalTo(0L));
+        assertThat(limiter.tryAcquire("client/1"), greaterThan(0L));
+    }
+
+    @Test
+    @DisplayName("tryAcquire should keep the buckets of different keys apart")
+    public void tryAcquire_withDifferentKeys_shouldNot_share_tokens() {
+        MoveRateLimiter limiter = new MoveRateLimiter(now::get, 1, 1, 100);
+        assertThat(limiter.tryAcquire("client/1"), equalTo(0L));
+        assertThat(limiter.tryAcquire("client/1"), greaterThan(0L));
+        assertThat(limiter.tryAcquire("client/2"), equalTo(0L));
+        assertThat(limiter.tryAcquire("other/1"), equalTo(0L));
+    }
+
+    @Test
+    @DisplayName("tryAcquire should keep the number of tracked keys bounded")
+    public void tryAcquire_shouldStay_bounded() {
+        MoveRateLimiter limiter = new MoveRateLimiter(now::get, 1, 1, 10);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client/" + i);
+        }
+        assertThat(limiter.size(), lessThanOrEqualTo(11));
+    }
+}
@@ -0,0 +1,74 @@
+package com.millertronics.kalahapi.stats;
+
+import com.millertronics.kalahapi.game.GameEntity;
+import com.millertronics.kalahapi.game.GameMovedEvent;
+import com.millertronics.kalahapi.game.GameUndoneEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class GameStatisticsTest {
+
+    private final GameStatistics gameStatistics = new GameStatistics();
+
+    @Test
+    @DisplayName("statistics should count moves, captures and the results of finished games")
+    @SuppressWarnings("unchecked")
+    public void onGameMoved_should_updateSummary() {
+        GameEntity ongoing = new GameEntity();
+        ongoing.recordMove(0, false);
+        gameStatistics.onGameMoved(new GameMovedEvent(ongoing, 0, false));
+
+        GameEntity wonByOpener = finishedGame(1, 3, 40, 32);
+        gameStatistics.onGameMoved(new GameMovedEvent(wonByOpener, 3, true));
+
+        GameEntity lostByOpener = finishedGame(8, 5, 42, 30);
+        gameStatistics.onGameMoved(new GameMovedEvent(lostByOpener, 9, false));
+
+        GameEntity drawn = finishedGame(1, 4, 36, 36);
+        gameStatistics.onGameMoved(new GameMovedEvent(drawn, 2, true));
+
+        Map<String, Object> summary = gameStatistics.getSummary();
+        assertThat(summary.get("moves"), equalTo(4L));
+        assertThat(summary.get("gamesFinished"), equalTo(3L));
+        assertThat(summary.get("captureFrequency"), equalTo(0.5));
+        assertThat(summary.get("averageGameLength"), equalTo(4.0));
+        assertThat(summary.get("firstPlayerWinRate"), equalTo(1.0 / 3));
+        assertThat(summary.get("secondPlayerWinRate"), equalTo(1.0 / 3));
+        assertThat(summary.get("drawRate"), equalTo(1.0 / 3));
+
+        Map<String, Object> openingPits = (Map<String, Object>) summary.get("openingPits");
+        assertThat(openingPits.keySet().toString(), equalTo("[2, 9]"));
+        assertThat(((Map<String, Object>) openingPits.get("2")).get("games"), equalTo(2L));
+        assertThat(((Map<String, Object>) openingPits.get("2")).get("winRate"), equalTo(0.5));
+        assertThat(((Map<String, Object>) openingPits.get("9")).get("winRate"), equalTo(0.0));
+    }
+
+    @Test
+    @DisplayName("statistics should count a move undone and replayed once")
+    public void onGameUndone_should_takeBackMove() {
+        GameEntity game = new GameEntity();
+        gameStatistics.onGameMoved(new GameMovedEvent(game, 0, false));
+        gameStatistics.onGameMoved(new GameMovedEvent(game, 3, true));
+        gameStatistics.onGameUndone(new GameUndoneEvent(game, 3, true));
+        gameStatistics.onGameMoved(new GameMovedEvent(game, 3, true));
+
+        Map<String, Object> summary = gameStatistics.getSummary();
+        assertThat(summary.get("moves"), equalTo(2L));
+        assertThat(summary.get("captureFrequency"), equalTo(0.5));
+    }
+
+    private static GameEntity finishedGame(final int openingPit, final int moves,
+                                           final int kalahOneStones, final int kalahTwoStones) {
+        GameEntity game = new GameEntity();
+        for (int i = 0; i < moves; i++) {
+            game.recordMove(openingPit, false);
+        }
+        game.updateStatus(new int[]{0, 0, 0, 0, 0, 0, kalahOneStones, 0, 0, 0, 0, 0, 0, kalahTwoStones});
+        return game;
+    }
+}
@@ -0,0 +1,41 @@
+package com.millertronics.kalahapi.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class BoundedMapTest {
+
+    @Test
+    @DisplayName("an addition over the bound should evict down to the retained size")
+    public void put_overBound_shouldEvict_toRetainedSize() {
+        BoundedMap<Integer, Integer> map = new BoundedMap<>(10, 5, value -> false, value -> true);
+        for (int i = 0; i < 10; i++) {
+            map.put(i, i);
+        }
+        assertThat(map.size(), equalTo(10));
+
+        map.put(10, 10);
+        assertThat(map.size(), equalTo(5));
+    }
+
+    @Test
+    @DisplayName("eviction should drop stale entries first and never drop entries that are not evictable")
+    public void put_overBound_shouldDrop_staleFirst_andKeep_unevictable() {
+        BoundedMap<Integer, Integer> map = new BoundedMap<>(4, 4, value -> value < 0, value -> value % 2 == 0);
+        map.put(1, -1);
+        map.put(2, 1);
+        map.put(3, 3);
+        map.put(4, 5);
+        map.putIfAbsent(5, 7);
+
+        assertThat(map.size(), equalTo(4));
+        assertThat(map.get(1), nullValue());
+
+        map.computeIfAbsent(6, key -> 9);
+        assertThat(map.size(), equalTo(5));
+    }
+}